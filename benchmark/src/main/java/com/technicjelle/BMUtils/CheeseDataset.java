@@ -0,0 +1,170 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generated sets of cells that look like the claims and territories that are seen on real servers,
+ * instead of perfect squares, which are the best case for the tracer.<br>
+ * Every dataset is generated from a fixed seed, so every run measures exactly the same cells.
+ */
+public enum CheeseDataset {
+	/**
+	 * A few large, irregular areas, grown with random walks, like claims that were expanded by hand over time
+	 */
+	RANDOM_WALK_BLOBS {
+		@Override
+		void generate(int cells, Random random, Set<Long> out) {
+			int blobs = Math.max(1, cells / 5000);
+			for (int blob = 0; blob < blobs; blob++) {
+				int target = (int) ((long) cells * (blob + 1) / blobs);
+				// far enough apart to (mostly) not grow into each other
+				int x = random.nextInt(1 << 16), y = random.nextInt(1 << 16);
+				List<Long> grown = new ArrayList<>();
+				while (out.size() < target) {
+					if (out.add(CellKey.pack(x, y))) grown.add(CellKey.pack(x, y));
+					if (random.nextInt(8) == 0 && !grown.isEmpty()) {
+						// jump back to an earlier cell, so the blob grows in all directions instead of wandering off
+						long cell = grown.get(random.nextInt(grown.size()));
+						x = CellKey.x(cell);
+						y = CellKey.y(cell);
+					}
+					switch (random.nextInt(4)) {
+						case 0 -> x++;
+						case 1 -> x--;
+						case 2 -> y++;
+						default -> y--;
+					}
+				}
+			}
+		}
+	},
+
+	/**
+	 * Cells that only touch each other diagonally, so every cell is a separate area, and every edge is a border.
+	 * This is the worst case for the amount of edges.
+	 */
+	CHECKERBOARD {
+		@Override
+		void generate(int cells, Random random, Set<Long> out) {
+			int side = (int) Math.ceil(Math.sqrt(cells * 2.0));
+			for (int x = 0; x < side && out.size() < cells; x++) {
+				for (int y = x & 1; y < side && out.size() < cells; y += 2) {
+					out.add(CellKey.pack(x, y));
+				}
+			}
+		}
+	},
+
+	/**
+	 * A single large square with hundreds of small holes in it, like a territory with lots of unclaimed gaps
+	 */
+	SWISS_CHEESE {
+		@Override
+		void generate(int cells, Random random, Set<Long> out) {
+			int holes = Math.max(1, Math.min(500, cells / 20));
+			// big enough for all cells, even when every hole is as large as possible
+			int side = (int) Math.ceil(Math.sqrt(cells + holes * 9.0)) + 2;
+			Set<Long> holeCells = new HashSet<>();
+			for (int hole = 0; hole < holes; hole++) {
+				// keep the holes away from the edge, so they don't become dents in the outline
+				int hx = 1 + random.nextInt(Math.max(1, side - 4)), hy = 1 + random.nextInt(Math.max(1, side - 4));
+				int w = 1 + random.nextInt(3), h = 1 + random.nextInt(3);
+				for (int x = hx; x < hx + w; x++) {
+					for (int y = hy; y < hy + h; y++) {
+						holeCells.add(CellKey.pack(x, y));
+					}
+				}
+			}
+			for (int x = 0; x < side && out.size() < cells; x++) {
+				for (int y = 0; y < side && out.size() < cells; y++) {
+					long cell = CellKey.pack(x, y);
+					if (!holeCells.contains(cell)) out.add(cell);
+				}
+			}
+		}
+	},
+
+	/**
+	 * A single line of cells, curled up into a square spiral, so the outline is as long as possible for its area
+	 */
+	SPIRAL {
+		@Override
+		void generate(int cells, Random random, Set<Long> out) {
+			int x = 0, y = 0;
+			int dx = 1, dy = 0;
+			// the legs grow by two every other turn, which leaves a gap of one cell between the windings
+			for (int leg = 2; out.size() < cells; leg += 2) {
+				for (int turn = 0; turn < 2 && out.size() < cells; turn++) {
+					for (int i = 0; i < leg && out.size() < cells; i++) {
+						out.add(CellKey.pack(x, y));
+						x += dx;
+						y += dy;
+					}
+					// turn left
+					int swap = dx;
+					dx = -dy;
+					dy = swap;
+				}
+			}
+		}
+	},
+
+	/**
+	 * Many tiny claims of a few cells, scattered over a large world, like the homes of many players
+	 */
+	SCATTERED_CLAIMS {
+		@Override
+		void generate(int cells, Random random, Set<Long> out) {
+			int worldSize = Math.max(64, (int) Math.sqrt(cells) * 8);
+			while (out.size() < cells) {
+				int cx = random.nextInt(worldSize), cy = random.nextInt(worldSize);
+				int w = 1 + random.nextInt(3), h = 1 + random.nextInt(3);
+				for (int x = cx; x < cx + w && out.size() < cells; x++) {
+					for (int y = cy; y < cy + h && out.size() < cells; y++) {
+						out.add(CellKey.pack(x, y));
+					}
+				}
+			}
+		}
+	};
+
+	abstract void generate(int cells, Random random, Set<Long> out);
+
+	/**
+	 * @param cells The amount of cells to generate.
+	 * @return The packed cells, in a random order, like they would come out of a database.
+	 */
+	public long[] generate(int cells) {
+		Random random = new Random(42);
+		Set<Long> generated = new HashSet<>(cells * 2);
+		generate(cells, random, generated);
+
+		long[] packed = new long[generated.size()];
+		int i = 0;
+		for (long cell : generated) packed[i++] = cell;
+		// shuffle, so the order of the HashSet doesn't give away anything
+		for (i = packed.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			long swap = packed[i];
+			packed[i] = packed[j];
+			packed[j] = swap;
+		}
+		return packed;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the tracer on the shapes from {@link CheeseDataset}, which look like the claims on real servers.<br>
+ * Run with the GC profiler, to also see how much memory every call allocates:
+ * either through {@link #main(String[])}, or with <code>java -jar benchmarks.jar RealisticCheeseBench -prof gc</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class RealisticCheeseBench {
+
+	@State(Scope.Benchmark)
+	public static class DatasetState {
+		@Param
+		public CheeseDataset dataset;
+
+		@Param({"1000", "10000", "100000", "1000000"})
+		public int cells;
+
+		public long[] packed;
+		public Vector2i[] chunks;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			packed = dataset.generate(cells);
+			chunks = new Vector2i[packed.length];
+			for (int i = 0; i < packed.length; i++) {
+				chunks[i] = CellKey.toVector(packed[i]);
+			}
+		}
+	}
+
+	@Benchmark
+	public Collection<Cheese> platter(DatasetState state) {
+		return Cheese.createPlatterFromChunks(state.chunks);
+	}
+
+	/**
+	 * For direct comparison with {@link #platter(DatasetState)}
+	 * to see how much the {@link Vector2i} objects cost.
+	 */
+	@Benchmark
+	public Collection<Cheese> platterPacked(DatasetState state) {
+		return Cheese.createPlatterFromChunks(state.packed);
+	}
+
+	@Benchmark
+	public Collection<Cheese> platterParallel(DatasetState state) {
+		return Cheese.createPlatterFromChunksParallel(state.chunks);
+	}
+
+	@Benchmark
+	public Collection<NestedCheese> nestedPlatter(DatasetState state) {
+		return Cheese.createNestedPlatterFromChunks(state.chunks);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(RealisticCheeseBench.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+
+/**
+ * Follows the borders of a set of cells, one line at a time.<br>
+ * Every cell has four edges around it, in clockwise direction. An edge is on the border if the cell on its other side is not in the set.
+ * The subclasses decide how the border edges are found and how they are marked as visited.<br>
+ * <br>
+ * Directions are stored as bits in a 4-bit mask per vertex, so no objects are needed per edge.<br>
+ * Tracing can be done in steps with {@link #start(Vector2d)} and {@link #step(long)},
+ * which remember where they were in the scan and in the current line, see {@link PlatterJob}.
+ */
+abstract class BorderTracer {
+	static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+	static final int[] DX = {0, 1, 0, -1};
+	static final int[] DY = {1, 0, -1, 0};
+
+	/**
+	 * Offset that is added to the vertex coordinates to get the cell coordinates
+	 */
+	private final int offsetX, offsetY;
+
+	private Vector2d cellSize;
+	private CheeseBuilder builder;
+
+	/** The next vertex of the scan to start lines from */
+	private long scanIndex;
+	// the line that is being traced, if any
+	private boolean tracingLine = false;
+	private int lineStartX, lineStartY;
+	private int lineX, lineY;
+	private int lineDirection;
+	private boolean lineFirst;
+	private boolean lineClockwiseFirst;
+
+	// recording which line the top edge of every run is on, for finding the holes that groups are in
+	private RunLabeling labeling;
+	private long[] runTopLines;
+	private int group;
+
+	BorderTracer(int offsetX, int offsetY) {
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+	}
+
+	/**
+	 * @return A bitmask of the unvisited border edges that leave the vertex, indexed by direction
+	 */
+	abstract int outgoing(int x, int y);
+
+	/**
+	 * Marks the border edge that leaves the vertex in the direction as visited
+	 */
+	abstract void visit(int x, int y, int direction);
+
+	/**
+	 * @return The amount of vertices that lines are started from, see {@link #scanVertex(long)}
+	 */
+	abstract long scanCount();
+
+	/**
+	 * The vertices that lines are started from, first by x, then by y.
+	 * This order guarantees that the first line found is the outline.<br>
+	 * The lowest vertex of every line must be one of them, but they don't need to have any border edges.
+	 *
+	 * @return The packed vertex at that index of the scan
+	 */
+	abstract long scanVertex(long index);
+
+	/**
+	 * @return How many vertices the border goes straight on in the direction from the vertex, before it can turn.
+	 * The vertices in between are never visited
+	 */
+	int straightLength(int x, int y, int direction) {
+		return 1;
+	}
+
+	/**
+	 * Makes the next {@link #trace(Vector2d)} store the line that the top edge of every run of the group is on,
+	 * as the group in the upper half and the index of the line in the lower half.
+	 */
+	void recordTopLines(RunLabeling labeling, int group, long[] runTopLines) {
+		this.labeling = labeling;
+		this.group = group;
+		this.runTopLines = runTopLines;
+	}
+
+	/**
+	 * Traces all border lines into a single {@link Cheese}.
+	 * The first traced line is the outline, and all following lines are holes.
+	 */
+	Cheese trace(Vector2d cellSize) {
+		start(cellSize);
+		while (!step(Long.MAX_VALUE)) {
+			// a step without a limit goes all the way
+		}
+		return result();
+	}
+
+	/**
+	 * Starts tracing in steps. Call {@link #step(long)} until it returns <code>true</code>, and then get the {@link #result()}.
+	 */
+	void start(Vector2d cellSize) {
+		this.cellSize = cellSize;
+		builder = new CheeseBuilder();
+		scanIndex = 0;
+		tracingLine = false;
+	}
+
+	/**
+	 * Continues tracing, for at most the given amount of scanned vertices and followed edges.
+	 *
+	 * @return Whether all lines have been traced
+	 */
+	boolean step(long maxWork) {
+		for (long work = 0; work < maxWork; work++) {
+			if (tracingLine) {
+				followEdge();
+				continue;
+			}
+			if (scanIndex == scanCount()) return true;
+
+			// start all lines that start at the vertex, before moving on to the next one
+			long vertex = scanVertex(scanIndex);
+			int x = CellKey.x(vertex), y = CellKey.y(vertex);
+			if (outgoing(x, y) != 0) startLine(x, y, builder.getLineCount() == 0);
+			else scanIndex++;
+		}
+		return !tracingLine && scanIndex == scanCount();
+	}
+
+	/**
+	 * @return The traced cheese
+	 * @throws IllegalStateException If tracing is not done yet
+	 */
+	Cheese result() {
+		if (tracingLine || scanIndex != scanCount()) throw new IllegalStateException("Tracing is not done yet");
+		return builder.build();
+	}
+
+	/**
+	 * Starts following the border from the start vertex until it gets back to it,
+	 * choosing the most clockwise (or counterclockwise) turn at every vertex.<br>
+	 * Only the corners are kept, and the start vertex is moved to the end.
+	 * The start vertex should be the lowest vertex that still has unvisited edges, which guarantees that it is a corner.
+	 * The corners are added to the builder as a new line.
+	 */
+	private void startLine(int startX, int startY, boolean clockwiseFirst) {
+		tracingLine = true;
+		lineStartX = lineX = startX;
+		lineStartY = lineY = startY;
+		lineDirection = UP; // start direction doesn't matter
+		lineFirst = true;
+		lineClockwiseFirst = clockwiseFirst;
+	}
+
+	/**
+	 * Follows a single border edge, or a straight stretch of them, of the current line
+	 */
+	private void followEdge() {
+		int x = lineX, y = lineY;
+		int outgoing = outgoing(x, y);
+		if (outgoing == 0) throw new IllegalStateException("Loose end"); // should never happen
+
+		int d = turn(outgoing, lineDirection, lineClockwiseFirst);
+		visit(x, y, d);
+		if (runTopLines != null && d == LEFT) {
+			// the edge is the top of the cell to the lower left of the vertex
+			runTopLines[labeling.runAt(offsetX + x - 1, offsetY + y - 1)] = (long) group << 32 | builder.getLineCount();
+		}
+
+		// only keep the vertices where the line changes direction
+		if (!lineFirst && d != lineDirection) addCorner(x, y);
+		lineFirst = false;
+
+		int length = straightLength(x, y, d);
+		lineX = x + DX[d] * length;
+		lineY = y + DY[d] * length;
+		lineDirection = d;
+
+		if (lineX == lineStartX && lineY == lineStartY) {
+			addCorner(lineStartX, lineStartY);
+			builder.endLine();
+			tracingLine = false;
+		}
+	}
+
+	/**
+	 * Chooses the next edge by taking the direction of the previous edge and finding the most clockwise
+	 * (or counterclockwise, if specified) turn possible.<br>
+	 * The mask is rotated so the candidates are in order, and then the highest (or lowest) bit is taken.
+	 *
+	 * @param outgoing  The mask of possible directions. Must not be <code>0</code>.
+	 * @param direction The direction of the previous edge.
+	 * @return The direction of the next edge.
+	 */
+	static int turn(int outgoing, int direction, boolean clockwiseFirst) {
+		if (clockwiseFirst) {
+			// bit 3: turn right, bit 2: straight on, bit 1: turn left, bit 0: turn around
+			int shift = (direction + 2) & 3;
+			int candidates = rotate(outgoing, shift);
+			return (shift + 31 - Integer.numberOfLeadingZeros(candidates)) & 3;
+		} else {
+			// bit 0: turn left, bit 1: straight on, bit 2: turn right, bit 3: turn around
+			int shift = (direction + 3) & 3;
+			int candidates = rotate(outgoing, shift);
+			return (shift + Integer.numberOfTrailingZeros(candidates)) & 3;
+		}
+	}
+
+	/**
+	 * Rotates a 4-bit mask to the right
+	 */
+	private static int rotate(int mask, int shift) {
+		return ((mask >>> shift) | (mask << (4 - shift))) & 0xF;
+	}
+
+	private void addCorner(int x, int y) {
+		builder.addPoint((double) (offsetX + x) * cellSize.getX(), (double) (offsetY + y) * cellSize.getY());
+	}
+}
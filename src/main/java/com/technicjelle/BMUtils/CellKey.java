@@ -0,0 +1,144 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.Arrays;
+
+/**
+ * Packs cell coordinates into a single <code>long</code>, so they can be stored without any per-cell objects.<br>
+ * The x coordinate is stored in the high 32 bits, the y coordinate in the low 32 bits.<br>
+ * <br>
+ * Packed cells can be fed directly into {@link Cheese#createPlatterFromCells(com.flowpowered.math.vector.Vector2d, long[])}
+ * and the other factories that take <code>long</code>s.
+ */
+public final class CellKey {
+	/** How many bits of a {@link #sortKey(long)} the radix sorts sort at once */
+	static final int RADIX_BITS = 16;
+	static final int RADIX_SIZE = 1 << RADIX_BITS;
+	/** How many passes a radix sort needs to sort whole keys */
+	static final int RADIX_PASSES = Long.SIZE / RADIX_BITS;
+	/**
+	 * Flipping the sign bits of x and y makes an unsigned sort give the same order as {@link #sort(long[], int, int)}
+	 */
+	private static final long SIGN_BITS = 0x80000000_80000000L;
+
+	private CellKey() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Packs a cell into a single <code>long</code>.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return The packed cell.
+	 */
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Packs a cell into a single <code>long</code>.
+	 *
+	 * @param cell The cell.
+	 * @return The packed cell.
+	 */
+	public static long pack(Vector2i cell) {
+		return pack(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * @param key The packed cell.
+	 * @return The x coordinate of the cell.
+	 */
+	public static int x(long key) {
+		return (int) (key >> 32);
+	}
+
+	/**
+	 * @param key The packed cell.
+	 * @return The y coordinate of the cell.
+	 */
+	public static int y(long key) {
+		return (int) key;
+	}
+
+	/**
+	 * @param key The packed cell.
+	 * @return The cell as a vector.
+	 */
+	public static Vector2i toVector(long key) {
+		return Vector2i.from(x(key), y(key));
+	}
+
+	/**
+	 * Sorts packed cells by x first and y second, which is the same order the tracer uses for its vertices.<br>
+	 * The sign bit of y is flipped during the sort, so that negative y coordinates come before positive ones.
+	 */
+	static void sort(long[] keys, int from, int to) {
+		for (int i = from; i < to; i++) keys[i] ^= 0x80000000L;
+		Arrays.sort(keys, from, to);
+		for (int i = from; i < to; i++) keys[i] ^= 0x80000000L;
+	}
+
+	/**
+	 * Same as {@link #sort(long[], int, int)} for the whole array, but moves the owner of every cell along with it,
+	 * with a radix sort on the {@link #sortKey(long)}s.
+	 *
+	 * @param owners The owner of every cell, at the same index. Must be as long as <code>keys</code>.
+	 */
+	static void sort(long[] keys, int[] owners) {
+		int size = keys.length;
+		long[] keyBuffer = new long[size];
+		int[] ownerBuffer = new int[size];
+		int[] offsets = new int[RADIX_SIZE];
+		for (int i = 0; i < size; i++) keys[i] = sortKey(keys[i]);
+		for (int pass = 0; pass < RADIX_PASSES; pass++) {
+			Arrays.fill(offsets, 0);
+			for (long key : keys) offsets[radixDigit(key, pass)]++;
+			// all keys have the same digit, so this pass wouldn't move anything
+			if (size == 0 || offsets[radixDigit(keys[0], pass)] == size) continue;
+
+			for (int digit = 0, start = 0; digit < RADIX_SIZE; digit++) {
+				int count = offsets[digit];
+				offsets[digit] = start;
+				start += count;
+			}
+			for (int i = 0; i < size; i++) {
+				int to = offsets[radixDigit(keys[i], pass)]++;
+				keyBuffer[to] = keys[i];
+				ownerBuffer[to] = owners[i];
+			}
+			System.arraycopy(keyBuffer, 0, keys, 0, size);
+			System.arraycopy(ownerBuffer, 0, owners, 0, size);
+		}
+		for (int i = 0; i < size; i++) keys[i] = sortKey(keys[i]);
+	}
+
+	/**
+	 * Turns a packed cell into a key for an unsigned radix sort, that sorts in the same order as {@link #sort(long[], int, int)}.
+	 * Calling this again on the key gives the packed cell back.
+	 */
+	static long sortKey(long key) {
+		return key ^ SIGN_BITS;
+	}
+
+	/**
+	 * @return The digit of the sort key that the radix sort uses in that pass, starting with the lowest bits
+	 */
+	static int radixDigit(long sortKey, int pass) {
+		return (int) (sortKey >>> (pass * RADIX_BITS)) & (RADIX_SIZE - 1);
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of cells, stored as bitmaps of 64 by 64 cells, to combine large areas with boolean operations,
+ * like the chunks that are claimed, but not protected.<br>
+ * <br>
+ * {@link #union(CellSet)}, {@link #intersection(CellSet)}, {@link #difference(CellSet)} and {@link #xor(CellSet)}
+ * work on whole 64-bit words at once, so they cost a few bit operations per 64 cells, instead of a hash lookup per cell.
+ * Only the tiles that contain any cells are stored.<br>
+ * The cells of a set come out of their tiles already sorted, so creating a platter from a set doesn't need to sort them either.<br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public class CellSet {
+	private static final int TILE_BITS = 6;
+	private static final int TILE_SIZE = 1 << TILE_BITS;
+	private static final int TILE_MASK = TILE_SIZE - 1;
+
+	/**
+	 * The tiles, by their packed tile coordinates.
+	 * Every tile has a word per x coordinate, with a bit per y coordinate, and is never all zeroes
+	 */
+	private final LongObjectMap<long[]> tiles;
+
+	/**
+	 * Creates a new, empty set.
+	 */
+	public CellSet() {
+		this.tiles = new LongObjectMap<>();
+	}
+
+	private CellSet(int expectedTiles) {
+		this.tiles = new LongObjectMap<>(expectedTiles);
+	}
+
+	/**
+	 * Creates a set from cells.
+	 *
+	 * @param cells The cells to put in the set.
+	 * @return A new set with the cells.
+	 */
+	public static CellSet of(Vector2i... cells) {
+		CellSet set = new CellSet();
+		for (Vector2i cell : cells) {
+			set.add(cell.getX(), cell.getY());
+		}
+		return set;
+	}
+
+	/**
+	 * Creates a set from cells that have been packed with {@link CellKey}.
+	 *
+	 * @param cells The packed cells to put in the set.
+	 * @return A new set with the cells.
+	 */
+	public static CellSet of(long[] cells) {
+		CellSet set = new CellSet();
+		for (long cell : cells) {
+			set.add(CellKey.x(cell), CellKey.y(cell));
+		}
+		return set;
+	}
+
+	/**
+	 * Adds a cell to the set.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell was not in the set yet.
+	 */
+	public boolean add(int x, int y) {
+		long tileKey = tileKey(x, y);
+		long[] tile = tiles.get(tileKey);
+		if (tile == null) {
+			tile = new long[TILE_SIZE];
+			tiles.put(tileKey, tile);
+		}
+		long bit = 1L << (y & TILE_MASK);
+		long word = tile[x & TILE_MASK];
+		tile[x & TILE_MASK] = word | bit;
+		return (word & bit) == 0;
+	}
+
+	/**
+	 * Adds a cell to the set.
+	 *
+	 * @param cell The cell.
+	 * @return Whether the cell was not in the set yet.
+	 */
+	public boolean add(Vector2i cell) {
+		return add(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Removes a cell from the set.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell was in the set.
+	 */
+	public boolean remove(int x, int y) {
+		long tileKey = tileKey(x, y);
+		long[] tile = tiles.get(tileKey);
+		if (tile == null) return false;
+		long bit = 1L << (y & TILE_MASK);
+		long word = tile[x & TILE_MASK];
+		if ((word & bit) == 0) return false;
+		tile[x & TILE_MASK] = word & ~bit;
+		if (isEmpty(tile)) tiles.remove(tileKey);
+		return true;
+	}
+
+	/**
+	 * Removes a cell from the set.
+	 *
+	 * @param cell The cell.
+	 * @return Whether the cell was in the set.
+	 */
+	public boolean remove(Vector2i cell) {
+		return remove(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell is in the set.
+	 */
+	public boolean contains(int x, int y) {
+		long[] tile = tiles.get(tileKey(x, y));
+		return tile != null && (tile[x & TILE_MASK] & (1L << (y & TILE_MASK))) != 0;
+	}
+
+	/**
+	 * @param cell The cell.
+	 * @return Whether the cell is in the set.
+	 */
+	public boolean contains(Vector2i cell) {
+		return contains(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Counts the cells in the set. This takes time for every tile, so don't call it more often than needed.
+	 *
+	 * @return The amount of cells in the set.
+	 */
+	public long size() {
+		long size = 0;
+		for (long tileKey : tiles.keysToArray()) {
+			for (long word : tiles.get(tileKey)) size += Long.bitCount(word);
+		}
+		return size;
+	}
+
+	/**
+	 * @return Whether the set contains no cells.
+	 */
+	public boolean isEmpty() {
+		return tiles.isEmpty();
+	}
+
+	/**
+	 * @param other The other set.
+	 * @return A new set with the cells that are in either set.
+	 */
+	public CellSet union(CellSet other) {
+		CellSet result = new CellSet(tiles.size() + other.tiles.size());
+		for (long tileKey : tiles.keysToArray()) {
+			result.tiles.put(tileKey, tiles.get(tileKey).clone());
+		}
+		for (long tileKey : other.tiles.keysToArray()) {
+			long[] b = other.tiles.get(tileKey);
+			long[] tile = result.tiles.get(tileKey);
+			if (tile == null) {
+				result.tiles.put(tileKey, b.clone());
+				continue;
+			}
+			for (int i = 0; i < TILE_SIZE; i++) tile[i] |= b[i];
+		}
+		return result;
+	}
+
+	/**
+	 * @param other The other set.
+	 * @return A new set with the cells that are in both sets.
+	 */
+	public CellSet intersection(CellSet other) {
+		CellSet result = new CellSet(Math.min(tiles.size(), other.tiles.size()));
+		for (long tileKey : tiles.keysToArray()) {
+			long[] b = other.tiles.get(tileKey);
+			if (b == null) continue;
+			long[] a = tiles.get(tileKey);
+			long[] tile = new long[TILE_SIZE];
+			for (int i = 0; i < TILE_SIZE; i++) tile[i] = a[i] & b[i];
+			if (!isEmpty(tile)) result.tiles.put(tileKey, tile);
+		}
+		return result;
+	}
+
+	/**
+	 * @param other The other set.
+	 * @return A new set with the cells that are in this set, but not in the other set.
+	 */
+	public CellSet difference(CellSet other) {
+		CellSet result = new CellSet(tiles.size());
+		for (long tileKey : tiles.keysToArray()) {
+			long[] a = tiles.get(tileKey);
+			long[] b = other.tiles.get(tileKey);
+			if (b == null) {
+				result.tiles.put(tileKey, a.clone());
+				continue;
+			}
+			long[] tile = new long[TILE_SIZE];
+			for (int i = 0; i < TILE_SIZE; i++) tile[i] = a[i] & ~b[i];
+			if (!isEmpty(tile)) result.tiles.put(tileKey, tile);
+		}
+		return result;
+	}
+
+	/**
+	 * @param other The other set.
+	 * @return A new set with the cells that are in exactly one of the two sets.
+	 */
+	public CellSet xor(CellSet other) {
+		CellSet result = new CellSet(tiles.size() + other.tiles.size());
+		for (long tileKey : tiles.keysToArray()) {
+			result.tiles.put(tileKey, tiles.get(tileKey).clone());
+		}
+		for (long tileKey : other.tiles.keysToArray()) {
+			long[] b = other.tiles.get(tileKey);
+			long[] tile = result.tiles.get(tileKey);
+			if (tile == null) {
+				result.tiles.put(tileKey, b.clone());
+				continue;
+			}
+			for (int i = 0; i < TILE_SIZE; i++) tile[i] ^= b[i];
+			if (isEmpty(tile)) result.tiles.remove(tileKey);
+		}
+		return result;
+	}
+
+	/**
+	 * @return The cells in the set, packed with {@link CellKey}, sorted first by x, then by y.
+	 */
+	public long[] toArray() {
+		LongArrayList cells = new LongArrayList();
+		forEachSorted(cells::add);
+		return cells.toArray();
+	}
+
+	/**
+	 * Creates a platter from the chunks in this set.
+	 *
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromChunks(Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromChunks() {
+		return createPlatterFromCells(Cheese.CHUNK_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a platter from the cells in this set.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromCells(Vector2d, Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromCells(Vector2d cellSize) {
+		RunLabeling.Collector collector = new RunLabeling.Collector();
+		forEachSorted(collector::add);
+
+		NestedCheese[] nested = Cheese.traceNested(cellSize, collector.finish());
+		List<Cheese> platter = new ArrayList<>(nested.length);
+		for (NestedCheese cheese : nested) {
+			platter.add(cheese.getCheese());
+		}
+		return platter;
+	}
+
+	private interface CellConsumer {
+		void accept(long cell);
+	}
+
+	/**
+	 * Goes through the cells in the order of {@link CellKey#sort(long[], int, int)}:
+	 * the tiles are sorted the same way, and every column of cells is walked through all tiles above each other
+	 */
+	private void forEachSorted(CellConsumer consumer) {
+		long[] tileKeys = tiles.keysToArray();
+		CellKey.sort(tileKeys, 0, tileKeys.length);
+		long[][] column = new long[tileKeys.length][];
+
+		int start = 0;
+		while (start < tileKeys.length) {
+			int tileX = CellKey.x(tileKeys[start]);
+			int end = start;
+			while (end < tileKeys.length && CellKey.x(tileKeys[end]) == tileX) {
+				column[end] = tiles.get(tileKeys[end]);
+				end++;
+			}
+
+			for (int localX = 0; localX < TILE_SIZE; localX++) {
+				int x = tileX << TILE_BITS | localX;
+				for (int i = start; i < end; i++) {
+					int tileY = CellKey.y(tileKeys[i]) << TILE_BITS;
+					for (long word = column[i][localX]; word != 0; word &= word - 1) {
+						consumer.accept(CellKey.pack(x, tileY | Long.numberOfTrailingZeros(word)));
+					}
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Puts copies of all tiles of this set into the other set, replacing any tiles it already has in the same places
+	 */
+	void copyTilesTo(CellSet other) {
+		for (long tileKey : tiles.keysToArray()) {
+			other.tiles.put(tileKey, tiles.get(tileKey).clone());
+		}
+	}
+
+	/**
+	 * @return The packed coordinates of the tile that the cell is in
+	 */
+	static long tileKey(int x, int y) {
+		return CellKey.pack(x >> TILE_BITS, y >> TILE_BITS);
+	}
+
+	private static boolean isEmpty(long[] tile) {
+		for (long word : tile) {
+			if (word != 0) return false;
+		}
+		return true;
+	}
+}
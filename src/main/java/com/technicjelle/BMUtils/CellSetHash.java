@@ -0,0 +1,59 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * An order-independent 128-bit hash of a set of packed cells.<br>
+ * Every cell is mixed on its own, and the results are summed up, so the same cells in any order give the same hash.
+ * Duplicate cells are counted multiple times.
+ */
+final class CellSetHash {
+	private long sumA;
+	private long sumB;
+	private int count;
+
+	static CellSetHash of(long[] cellKeys) {
+		CellSetHash hash = new CellSetHash();
+		for (long cell : cellKeys) {
+			hash.add(cell);
+		}
+		return hash;
+	}
+
+	void add(long cell) {
+		sumA += mix(cell);
+		sumB += mix(cell + 0x9E3779B97F4A7C15L);
+		count++;
+	}
+
+	long getHashA() {
+		return sumA;
+	}
+
+	long getHashB() {
+		return sumB;
+	}
+
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * The finalizer of MurmurHash3
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+}
@@ -15,6 +15,7 @@ package com.technicjelle.BMUtils;
 import com.flowpowered.math.vector.Vector2d;
 import com.flowpowered.math.vector.Vector2i;
 import de.bluecolored.bluemap.api.markers.ExtrudeMarker;
+import de.bluecolored.bluemap.api.markers.MarkerSet;
 import de.bluecolored.bluemap.api.markers.ShapeMarker;
 import de.bluecolored.bluemap.api.math.Shape;
 
@@ -22,23 +23,59 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumMap;
-import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A {@link Shape} with possibly some holes.
  */
 public class Cheese {
-	private static final Vector2d CHUNK_CELL_SIZE = Vector2d.from(16, 16);
+	static final Vector2d CHUNK_CELL_SIZE = Vector2d.from(16, 16);
+	/**
+	 * Inputs with fewer cells than this are always traced on a single thread
+	 */
+	private static final int PARALLEL_THRESHOLD = 4096;
+	/**
+	 * The minimum amount of cells that are traced together in a single parallel task
+	 */
+	private static final int PARALLEL_BATCH_SIZE = 1024;
+	/**
+	 * Runs every task on a new virtual thread, for the asynchronous methods that don't get an {@link Executor}
+	 */
+	static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().name("BMUtils-Cheese").start(task);
+
+	/**
+	 * The x and y coordinates of the points of all lines, interleaved.<br>
+	 * Stored as a single flat array instead of {@link Shape}s of {@link Vector2d}s, to keep many cheeses small in memory.
+	 */
+	private final double[] coordinates;
+	/**
+	 * The index of the first point of every line, followed by the total amount of points.<br>
+	 * The first line is the outline, and all following lines are holes.
+	 */
+	private final int[] lineStarts;
 
-	private final Shape shape;
-	private final Collection<Shape> holes;
+	// measured while the lines are collected, see CheeseBuilder
+	private final double area;
+	private final double holeArea;
+	private final double perimeter;
+	private final double minX, minY, maxX, maxY;
 
 	/**
 	 * Creates a new Cheese with no holes.
@@ -46,8 +83,7 @@ public class Cheese {
 	 * @param shape The outer shape of the cheese.
 	 */
 	public Cheese(Shape shape) {
-		this.shape = shape;
-		this.holes = Collections.emptyList();
+		this(shape, Collections.emptyList());
 	}
 
 	/**
@@ -57,8 +93,7 @@ public class Cheese {
 	 * @param holes Any holes in the cheese.
 	 */
 	public Cheese(Shape shape, Shape... holes) {
-		this.shape = shape;
-		this.holes = Arrays.asList(holes);
+		this(shape, Arrays.asList(holes));
 	}
 
 	/**
@@ -68,22 +103,233 @@ public class Cheese {
 	 * @param holes Any holes in the cheese.
 	 */
 	public Cheese(Shape shape, Collection<Shape> holes) {
-		this.shape = shape;
-		this.holes = holes;
+		this(createBuilder(shape, holes));
+	}
+
+	/**
+	 * Creates a new Cheese from the lines and measurements that were collected by the builder.
+	 */
+	Cheese(CheeseBuilder builder) {
+		this.coordinates = builder.coordinates();
+		this.lineStarts = builder.lineStarts();
+		this.area = builder.outlineArea - builder.holeArea;
+		this.holeArea = builder.holeArea;
+		this.perimeter = builder.perimeter;
+		this.minX = builder.minX;
+		this.minY = builder.minY;
+		this.maxX = builder.maxX;
+		this.maxY = builder.maxY;
+	}
+
+	private static CheeseBuilder createBuilder(Shape shape, Collection<Shape> holes) {
+		int pointCount = shape.getPointCount();
+		for (Shape hole : holes) pointCount += hole.getPointCount();
+
+		CheeseBuilder builder = new CheeseBuilder(pointCount);
+		addLine(builder, shape);
+		for (Shape hole : holes) {
+			addLine(builder, hole);
+		}
+		return builder;
+	}
+
+	private static void addLine(CheeseBuilder builder, Shape line) {
+		for (Vector2d point : line.getPoints()) {
+			builder.addPoint(point.getX(), point.getY());
+		}
+		builder.endLine();
 	}
 
 	/**
+	 * Creates a new {@link Shape} object every time it is called, so keep it around if you need it more than once.<br>
+	 * To read the points without creating any objects, use {@link #getX(int, int)} and {@link #getY(int, int)}.
+	 *
 	 * @return The outer shape of the cheese.
 	 */
 	public Shape getShape() {
-		return shape;
+		return createShape(0);
 	}
 
 	/**
+	 * Creates new {@link Shape} objects every time it is called, so keep them around if you need them more than once.<br>
+	 * To read the points without creating any objects, use {@link #getX(int, int)} and {@link #getY(int, int)}.
+	 *
 	 * @return Any holes in the cheese.
 	 */
 	public Collection<Shape> getHoles() {
-		return holes;
+		int holeCount = getHoleCount();
+		if (holeCount == 0) return Collections.emptyList();
+		Shape[] holes = new Shape[holeCount];
+		for (int i = 0; i < holeCount; i++) {
+			holes[i] = createShape(i + 1);
+		}
+		return Collections.unmodifiableList(Arrays.asList(holes));
+	}
+
+	/**
+	 * @return The amount of holes in the cheese.
+	 */
+	public int getHoleCount() {
+		return lineStarts.length - 2;
+	}
+
+	/**
+	 * @return The amount of lines in the cheese: the outline, plus all the holes.
+	 */
+	public int getLineCount() {
+		return lineStarts.length - 1;
+	}
+
+	/**
+	 * @param line The index of the line. <code>0</code> is the outline, and the holes follow in the same order as {@link #getHoles()}.
+	 * @return The amount of points on the line.
+	 */
+	public int getPointCount(int line) {
+		return lineStarts[line + 1] - lineStarts[line];
+	}
+
+	/**
+	 * @param line  The index of the line. <code>0</code> is the outline, and the holes follow in the same order as {@link #getHoles()}.
+	 * @param point The index of the point on the line.
+	 * @return The x coordinate of the point.
+	 */
+	public double getX(int line, int point) {
+		return coordinates[index(line, point)];
+	}
+
+	/**
+	 * @param line  The index of the line. <code>0</code> is the outline, and the holes follow in the same order as {@link #getHoles()}.
+	 * @param point The index of the point on the line.
+	 * @return The y coordinate of the point.
+	 */
+	public double getY(int line, int point) {
+		return coordinates[index(line, point) + 1];
+	}
+
+	/**
+	 * @return The area that is covered by the cheese, so without its holes, in square blocks.
+	 */
+	public double getArea() {
+		return area;
+	}
+
+	/**
+	 * @return The total area of all holes in the cheese, in square blocks.
+	 */
+	public double getHoleArea() {
+		return holeArea;
+	}
+
+	/**
+	 * @return The total length of the outline and the borders of all holes, in blocks.
+	 */
+	public double getPerimeter() {
+		return perimeter;
+	}
+
+	/**
+	 * @return The total amount of points on the outline and all holes.
+	 */
+	public int getVertexCount() {
+		return lineStarts[lineStarts.length - 1];
+	}
+
+	/**
+	 * @return The lowest x coordinate of the bounding box of the cheese.
+	 */
+	public double getMinX() {
+		return minX;
+	}
+
+	/**
+	 * @return The lowest y coordinate of the bounding box of the cheese.
+	 */
+	public double getMinY() {
+		return minY;
+	}
+
+	/**
+	 * @return The highest x coordinate of the bounding box of the cheese.
+	 */
+	public double getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * @return The highest y coordinate of the bounding box of the cheese.
+	 */
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Creates a new {@link Vector2d} every time it is called. Use {@link #getMinX()} and {@link #getMinY()} to avoid that.
+	 *
+	 * @return The lowest corner of the bounding box of the cheese.
+	 */
+	public Vector2d getMin() {
+		return Vector2d.from(minX, minY);
+	}
+
+	/**
+	 * Creates a new {@link Vector2d} every time it is called. Use {@link #getMaxX()} and {@link #getMaxY()} to avoid that.
+	 *
+	 * @return The highest corner of the bounding box of the cheese.
+	 */
+	public Vector2d getMax() {
+		return Vector2d.from(maxX, maxY);
+	}
+
+	/**
+	 * Copies the coordinates of all points of a line into an array, with the x and y coordinates interleaved.
+	 *
+	 * @param line        The index of the line. <code>0</code> is the outline, and the holes follow in the same order as {@link #getHoles()}.
+	 * @param destination The array to copy into. Needs room for <code>2 * getPointCount(line)</code> values.
+	 * @param offset      The index in the array to start copying to.
+	 */
+	public void copyCoordinates(int line, double[] destination, int offset) {
+		int start = lineStarts[line] * 2;
+		System.arraycopy(coordinates, start, destination, offset, lineStarts[line + 1] * 2 - start);
+	}
+
+	/**
+	 * @return Whether the other cheese has exactly the same outline and holes, in the same order.
+	 */
+	boolean hasSamePoints(Cheese other) {
+		return Arrays.equals(lineStarts, other.lineStarts) && Arrays.equals(coordinates, other.coordinates);
+	}
+
+	private int index(int line, int point) {
+		int start = lineStarts[line];
+		if (point < 0 || point >= lineStarts[line + 1] - start) {
+			throw new IndexOutOfBoundsException("Point " + point + " is out of bounds for line " + line);
+		}
+		return (start + point) * 2;
+	}
+
+	private Shape createShape(int line) {
+		int start = lineStarts[line], end = lineStarts[line + 1];
+		Vector2d[] points = new Vector2d[end - start];
+		for (int i = start; i < end; i++) {
+			points[i - start] = Vector2d.from(coordinates[i * 2], coordinates[i * 2 + 1]);
+		}
+		return new Shape(points);
+	}
+
+	/**
+	 * Creates a simplified version of this cheese, with fewer points on the outline and holes.<br>
+	 * Useful for a coarser level of detail, to make markers that are viewed from far away smaller and faster to render.<br>
+	 * <br>
+	 * The simplified lines stay within the tolerance of the original ones, and never touch or cross each other,
+	 * so holes always stay inside the outline. Every line keeps at least three points.
+	 * Only this cheese is taken into account, so the simplified cheeses of a platter might still overlap each other.
+	 *
+	 * @param tolerance The maximum distance between the original and the simplified lines, in blocks.
+	 * @return A new, simplified cheese, or this cheese if the tolerance is not positive.
+	 */
+	public Cheese simplify(double tolerance) {
+		if (!(tolerance > 0)) return this;
+		return CheeseSimplifier.simplify(this, tolerance);
 	}
 
 	/**
@@ -112,258 +358,634 @@ public class Cheese {
 		return createSingleFromCells(CHUNK_CELL_SIZE, chunks);
 	}
 
+	/**
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but for chunks that have been packed with {@link CellKey}.
+	 *
+	 * @param chunks The packed chunks to create the cheese from. This array is not modified.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromChunks(long[] chunks) {
+		return createPlatterFromCells(CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but without having to put the chunks in an array first.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromChunks(Iterable<Vector2i> chunks) {
+		return createPlatterFromCells(CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Same as {@link #createSingleFromChunks(Vector2i...)}, but for chunks that have been packed with {@link CellKey}.
+	 *
+	 * @param chunks The packed chunks to create the cheese from. This array is not modified.
+	 * @return A single {@link Cheese} object representing a single connected area.
+	 */
+	public static Cheese createSingleFromChunks(long[] chunks) {
+		return createSingleFromCells(CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Same as {@link #createSingleFromChunks(Vector2i...)}, but without having to put the chunks in an array first.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return A single {@link Cheese} object representing a single connected area.
+	 */
+	public static Cheese createSingleFromChunks(Iterable<Vector2i> chunks) {
+		return createSingleFromCells(CHUNK_CELL_SIZE, chunks);
+	}
+
 	/**
 	 * Creates BlueMap {@link Shape}s with potentially some holes, from a collection of custom-sized cells.<br>
-	 * Designed to be looped over and fed into a BlueMap {@link ShapeMarker} or {@link ExtrudeMarker}
+	 * Designed to be looped over and fed into a BlueMap {@link ShapeMarker} or {@link ExtrudeMarker}<br>
+	 * The cheeses are ordered by their lowest cell (first by x, then by y), regardless of the order of the input.
 	 *
 	 * @param cellSize The size of a single cell.
 	 * @param cells    The cells to create the cheese from.
 	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
 	 */
 	public static Collection<Cheese> createPlatterFromCells(Vector2d cellSize, Vector2i... cells) {
-		Set<Vector2i> remainingCells = new HashSet<>(List.of(cells));
-		List<Cheese> platter = new ArrayList<>();
-
-		while (!remainingCells.isEmpty()) {
-			Set<Vector2i> connectedCells = new HashSet<>();
-			Stack<Vector2i> toVisit = new Stack<>();
-
-			// start with the first cell:
-			Vector2i start = remainingCells.iterator().next();
-			toVisit.push(start);
-
-			while (!toVisit.isEmpty()) {
-				Vector2i current = toVisit.pop();
-
-				if (!remainingCells.contains(current)) continue;
-				remainingCells.remove(current);
-				connectedCells.add(current);
-
-				// add all neighbours that are in the remainingCells set and not visited yet
-				for (Direction direction : Direction.values()) {
-					Vector2i neighbour = current.add(direction.vector);
-					if (remainingCells.contains(neighbour)) {
-						toVisit.add(neighbour);
-					}
-				}
-			}
+		return createPlatterFromCellKeys(cellSize, packCells(cells));
+	}
 
-			platter.add(createSingleFromCells(cellSize, connectedCells.toArray(Vector2i[]::new)));
-		}
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but for cells that have been packed with {@link CellKey}.<br>
+	 * Useful for when the cells are already stored as <code>long</code> keys, as no {@link Vector2i} objects are needed.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromCells(Vector2d cellSize, long[] cells) {
+		return createPlatterFromCellKeys(cellSize, cells.clone());
+	}
 
-		return platter;
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but for a stream of cells that have been packed with {@link CellKey}.<br>
+	 * Useful for when the cells come from a database cursor or another lazy source.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromCells(Vector2d cellSize, LongStream cells) {
+		return createPlatterFromCellKeys(cellSize, cells.toArray());
 	}
 
 	/**
-	 * Creates a single BlueMap {@link Shape} with potentially some holes, from a collection of custom-sized cells.<br>
-	 * Designed to be fed directly into a BlueMap {@link ShapeMarker} or {@link ExtrudeMarker}.<br>
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but with the coordinates of the cells in two separate arrays.
 	 *
-	 * <h4>WARNING:</h4><b>This method assumes that all cells are connected!</b><br>
-	 * If you're not absolutely 100% sure that your cells will always be connected, use {@link #createPlatterFromCells(Vector2d, Vector2i...)} instead.<br>
-	 * If multiple disconnected areas are found, only the first one will be returned.
+	 * @param cellSize The size of a single cell.
+	 * @param xs       The x coordinates of the cells.
+	 * @param ys       The y coordinates of the cells. Must be as long as <code>xs</code>.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromCells(Vector2d cellSize, int[] xs, int[] ys) {
+		return createPlatterFromCellKeys(cellSize, packCells(xs, ys));
+	}
+
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but without having to put the cells in an array first.
 	 *
 	 * @param cellSize The size of a single cell.
 	 * @param cells    The cells to create the cheese from.
-	 * @return A single {@link Cheese} object representing a single connected area.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
 	 */
-	public static Cheese createSingleFromCells(Vector2d cellSize, Vector2i... cells) {
-		Set<Edge> edges = createEdgesFromCells(cells);
-
-		// find all edges that don't have a second edge in the opposite direction (flipped)
-		// and add them to a multi-value-map indexed by the edges starting-point
-		// the map is sorted so that the first key is guaranteed to be on the outer edge
-		TreeMap<Vector2i, EnumMap<Direction, Edge>> borders = new TreeMap<>((a, b) -> {
-			int c = a.getX() - b.getX();
-			return c != 0 ? c : a.getY() - b.getY();
-		});
-		edges.stream()
-				.filter(edge -> !edges.contains(edge.flip))
-				.forEach(edge -> borders
-						.computeIfAbsent(edge.from, k -> new EnumMap<>(Direction.class))
-						.put(edge.direction, edge)
-				);
-
-		// the first trace will always be the outer outline
-		Shape outline = createShape(trace(borders, true), cellSize);
-
-		// all following traces will be holes
-		List<Shape> holes = new LinkedList<>();
-		while (!borders.isEmpty()) {
-			holes.add(createShape(trace(borders, false), cellSize));
-		}
-
-		return new Cheese(outline, holes);
+	public static Collection<Cheese> createPlatterFromCells(Vector2d cellSize, Iterable<Vector2i> cells) {
+		return createPlatterFromCellKeys(cellSize, packCells(cells));
 	}
 
 	/**
-	 * Create edges around each cell, in clockwise direction
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but traces every area only when the stream gets to it.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return A stream of {@link Cheese} objects, each representing a single connected area.
+	 * @see #streamPlatterFromCells(Vector2d, long[])
 	 */
-	private static Set<Edge> createEdgesFromCells(Vector2i... cells) {
-		Set<Edge> edges = new HashSet<>(cells.length * 4);
+	public static Stream<Cheese> streamPlatterFromChunks(Vector2i... chunks) {
+		return streamPlatterFromCells(CHUNK_CELL_SIZE, chunks);
+	}
 
-		for (Vector2i cell : cells) {
-			Vector2i[] corners = new Vector2i[]{
-					cell,
-					cell.add(1, 0),
-					cell.add(1, 1),
-					cell.add(0, 1)
-			};
-
-			edges.add(new Edge(corners[0], corners[1]));
-			edges.add(new Edge(corners[1], corners[2]));
-			edges.add(new Edge(corners[2], corners[3]));
-			edges.add(new Edge(corners[3], corners[0]));
-		}
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but traces every area only when the stream gets to it.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return A stream of {@link Cheese} objects, each representing a single connected area.
+	 * @see #streamPlatterFromCells(Vector2d, long[])
+	 */
+	public static Stream<Cheese> streamPlatterFromCells(Vector2d cellSize, Vector2i... cells) {
+		return streamPlatterFromCellKeys(cellSize, packCells(cells));
+	}
 
-		return edges;
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, long[])}, but traces every area only when the stream gets to it.<br>
+	 * The cells are sorted and joined into areas right away, but nothing is traced yet.
+	 * Every area is then traced when the stream asks for it, and the memory needed to trace it can be freed right after.
+	 * Only the runs of consecutive cells are kept until the stream is done,
+	 * so a large platter can be added to a {@link MarkerSet} one cheese at a time, without holding all of them at once.<br>
+	 * The cheeses come out in the same order as from {@link #createPlatterFromCells(Vector2d, long[])}.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return A stream of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Stream<Cheese> streamPlatterFromCells(Vector2d cellSize, long[] cells) {
+		return streamPlatterFromCellKeys(cellSize, cells.clone());
 	}
 
 	/**
-	 * Trace a line by following the first edge until we reach the starting point again
+	 * @param cellKeys The packed cells. This array will be sorted in place.
 	 */
-	private static List<Vector2i> trace(TreeMap<Vector2i, EnumMap<Direction, Edge>> borders, boolean clockwiseFirst) {
-		List<Vector2i> line = new LinkedList<>();
-		Vector2i start = borders.firstKey();
-		Vector2i position = start;
-		Direction direction = Direction.UP; // start direction doesn't matter
-		do {
-			EnumMap<Direction, Edge> connectingEdges = borders.get(position);
+	private static Stream<Cheese> streamPlatterFromCellKeys(Vector2d cellSize, long[] cellKeys) {
+		CellKey.sort(cellKeys, 0, cellKeys.length);
+		RunLabeling labeling = RunLabeling.label(cellKeys);
 
-			if (connectingEdges == null || connectingEdges.isEmpty())
-				throw new IllegalStateException("Loose end"); // should never happen
+		Iterator<Cheese> iterator = new Iterator<>() {
+			private int group = 0;
 
-			// Take the next edge & remove it from the source-set in the process
-			// Choosing the edge by taking the direction of the previous edge and trying to find the most clockwise
-			// (or counterclockwise, if specified) turn possible
-			Direction d = direction.opposite;
-			Edge edge = null;
-			while (edge == null) {
-				d = clockwiseFirst ? d.counterClockwise : d.clockwise;
-				edge = connectingEdges.remove(d);
+			@Override
+			public boolean hasNext() {
+				return group < labeling.groupCount();
 			}
 
-			// add the position to the line and advance
-			line.add(position);
-			position = edge.to;
-			direction = edge.direction;
+			@Override
+			public Cheese next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				return groupTracer(labeling, group++).trace(cellSize);
+			}
+		};
+		int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+		return StreamSupport.stream(Spliterators.spliterator(iterator, labeling.groupCount(), characteristics), false);
+	}
 
-			// optimize
-			optimizeEnd(line);
+	/**
+	 * Creates a platter for every owner of the chunks at once.<br>
+	 * Useful for rendering the territories of all factions or teams on a server at once.
+	 *
+	 * @param chunkOwners The owner of every chunk.
+	 * @param <K>         The type of the owners.
+	 * @return The platter of every owner, in the order that the owners were first found in the map.
+	 * @see #createPlattersByOwner(Vector2d, Map)
+	 */
+	public static <K> Map<K, Collection<Cheese>> createPlattersByOwner(Map<Vector2i, K> chunkOwners) {
+		return createPlattersByOwner(CHUNK_CELL_SIZE, chunkOwners);
+	}
 
-		} while (!position.equals(start));
+	/**
+	 * Creates a platter for every owner of the cells at once.<br>
+	 * Useful for rendering the territories of all factions or teams on a server at once.<br>
+	 * <br>
+	 * The cells of all owners are sorted and labeled together, in a single pass, where only cells of the same owner are joined.
+	 * The borders of all areas are then found in a single sweep, so a border between two owners is only found once,
+	 * and is followed by both of them. This makes the work grow with the total amount of cells, not with the amount of owners.<br>
+	 * Every platter is the same as what {@link #createPlatterFromCells(Vector2d, Vector2i...)} gives for the cells of that owner alone.
+	 *
+	 * @param cellSize   The size of a single cell.
+	 * @param cellOwners The owner of every cell.
+	 * @param <K>        The type of the owners.
+	 * @return The platter of every owner, in the order that the owners were first found in the map.
+	 */
+	public static <K> Map<K, Collection<Cheese>> createPlattersByOwner(Vector2d cellSize, Map<Vector2i, K> cellOwners) {
+		// number the owners in the order they are found
+		List<K> owners = new ArrayList<>();
+		Map<K, Integer> ownerIndices = new HashMap<>();
+		long[] cellKeys = new long[cellOwners.size()];
+		int[] cellOwnerIndices = new int[cellKeys.length];
+		int cell = 0;
+		K lastOwner = null;
+		int lastIndex = -1;
+		for (Map.Entry<Vector2i, K> entry : cellOwners.entrySet()) {
+			K owner = entry.getValue();
+			// neighbouring cells often have the same owner, so this saves most of the map lookups
+			if (lastIndex < 0 || !Objects.equals(owner, lastOwner)) {
+				lastOwner = owner;
+				lastIndex = ownerIndices.computeIfAbsent(owner, k -> {
+					owners.add(k);
+					return owners.size() - 1;
+				});
+			}
+			cellKeys[cell] = CellKey.pack(entry.getKey());
+			cellOwnerIndices[cell] = lastIndex;
+			cell++;
+		}
 
-		// optimize one last time with the start moved to the end
-		line.add(line.removeFirst());
-		optimizeEnd(line);
+		CellKey.sort(cellKeys, cellOwnerIndices);
+		RunLabeling.Collector collector = new RunLabeling.Collector();
+		for (int i = 0; i < cellKeys.length; i++) {
+			collector.add(cellKeys[i], cellOwnerIndices[i]);
+		}
+		RunLabeling labeling = collector.finish();
+		SharedBorders borders = SharedBorders.find(labeling);
 
-		// remove all empty multi-value-map collections
-		borders.values().removeIf(Map::isEmpty);
+		List<List<Cheese>> platters = new ArrayList<>(owners.size());
+		for (int i = 0; i < owners.size(); i++) {
+			platters.add(new ArrayList<>());
+		}
+		// the areas are in the order of their lowest cell, so every platter is in that order as well
+		for (int group = 0; group < labeling.groupCount(); group++) {
+			platters.get(labeling.groupOwner(group)).add(borders.tracer(group).trace(cellSize));
+		}
 
-		return line;
+		Map<K, Collection<Cheese>> result = new LinkedHashMap<>();
+		for (int i = 0; i < owners.size(); i++) {
+			result.put(owners.get(i), platters.get(i));
+		}
+		return result;
 	}
 
 	/**
-	 * line-optimization: if the last three points are on a straight line, remove the middle one
+	 * @param cellKeys The packed cells. This array will be sorted in place.
 	 */
-	private static void optimizeEnd(List<Vector2i> line) {
-		int s = line.size();
-		if (s >= 3) {
-			Vector2i from = line.get(s - 3);
-			Vector2i middle = line.get(s - 2);
-			Vector2i to = line.get(s - 1);
-			if ( // we can safely assume that all edges are axis-aligned
-					(from.getX() == middle.getX() && to.getX() == middle.getX()) ||
-					(from.getY() == middle.getY() && to.getY() == middle.getY())
-			) {
-				line.remove(s - 2);
-			}
+	private static Collection<Cheese> createPlatterFromCellKeys(Vector2d cellSize, long[] cellKeys) {
+		NestedCheese[] nested = traceNested(cellSize, cellKeys);
+		List<Cheese> platter = new ArrayList<>(nested.length);
+		for (NestedCheese cheese : nested) {
+			platter.add(cheese.getCheese());
 		}
+		return platter;
 	}
 
 	/**
-	 * Translates the cell-positions to world-positions by applying the cellSize
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but also finds out which cheeses lie inside the holes of other cheeses.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return The cheeses that don't lie inside any other cheese, with the cheeses inside their holes as children.
+	 * @see NestedCheese
 	 */
-	private static Shape createShape(List<Vector2i> cellPositions, Vector2d cellSize) {
-		return new Shape(cellPositions.stream()
-				.map(position -> position.toDouble().mul(cellSize))
-				.toArray(Vector2d[]::new));
+	public static Collection<NestedCheese> createNestedPlatterFromChunks(Vector2i... chunks) {
+		return createNestedPlatterFromCells(CHUNK_CELL_SIZE, chunks);
 	}
 
-	private static class Edge {
-		private final Vector2i from, to;
-		private final Direction direction;
-		private final Edge flip;
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but also finds out which cheeses lie inside the holes of other cheeses.<br>
+	 * This is found out while tracing, so no extra geometric checks are needed.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return The cheeses that don't lie inside any other cheese, with the cheeses inside their holes as children.
+	 * @see NestedCheese
+	 */
+	public static Collection<NestedCheese> createNestedPlatterFromCells(Vector2d cellSize, Vector2i... cells) {
+		return createNestedPlatterFromCellKeys(cellSize, packCells(cells));
+	}
 
-		public Edge(Vector2i from, Vector2i to) {
-			if (from.equals(to)) throw new IllegalArgumentException("from and to can not be the same");
+	/**
+	 * Same as {@link #createNestedPlatterFromCells(Vector2d, Vector2i...)}, but for cells that have been packed with {@link CellKey}.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return The cheeses that don't lie inside any other cheese, with the cheeses inside their holes as children.
+	 * @see NestedCheese
+	 */
+	public static Collection<NestedCheese> createNestedPlatterFromCells(Vector2d cellSize, long[] cells) {
+		return createNestedPlatterFromCellKeys(cellSize, cells.clone());
+	}
 
-			this.from = from;
-			this.to = to;
-			this.direction = from.getX() == to.getX() ?
-					from.getY() > to.getY() ? Direction.DOWN : Direction.UP :
-					from.getX() > to.getX() ? Direction.LEFT : Direction.RIGHT;
-			this.flip = new Edge(this);
+	/**
+	 * @param cellKeys The packed cells. This array will be sorted in place.
+	 */
+	private static Collection<NestedCheese> createNestedPlatterFromCellKeys(Vector2d cellSize, long[] cellKeys) {
+		List<NestedCheese> roots = new ArrayList<>();
+		for (NestedCheese cheese : traceNested(cellSize, cellKeys)) {
+			if (cheese.getParent() == null) roots.add(cheese);
 		}
+		return roots;
+	}
+
+	/**
+	 * Labels the connected areas, and traces them straight from their runs of cells,
+	 * instead of first copying the cells of every area into a separate array.<br>
+	 * While tracing, the line that the top of every run is on is remembered.
+	 * The line right below the lowest cell of an area then tells which hole the area is in:
+	 * if that line is a hole, the area is inside it, and if it is an outline, the area is next to that other area, so in the same hole.
+	 * That line is always traced before the area itself, as areas are traced in the order of their lowest cell.
+	 *
+	 * @param cellKeys The packed cells. This array will be sorted in place.
+	 * @return All traced cheeses, ordered by their lowest cell.
+	 */
+	private static NestedCheese[] traceNested(Vector2d cellSize, long[] cellKeys) {
+		CellKey.sort(cellKeys, 0, cellKeys.length);
+		return traceNested(cellSize, RunLabeling.label(cellKeys));
+	}
+
+	/**
+	 * @see #traceNested(Vector2d, long[])
+	 */
+	static NestedCheese[] traceNested(Vector2d cellSize, RunLabeling labeling) {
+		return traceNested(cellSize, labeling, () -> false);
+	}
 
-		private Edge(Edge flip) {
-			this.from = flip.to;
-			this.to = flip.from;
-			this.direction = flip.direction.opposite;
-			this.flip = flip;
+	/**
+	 * Same as {@link #traceNested(Vector2d, RunLabeling)}, but stops between two areas when it is cancelled.
+	 *
+	 * @param cancelled Checked before every area is traced.
+	 * @throws CancellationException When <code>cancelled</code> returns <code>true</code>.
+	 */
+	static NestedCheese[] traceNested(Vector2d cellSize, RunLabeling labeling, BooleanSupplier cancelled) {
+		int groupCount = labeling.groupCount();
+		long[] runTopLines = new long[labeling.runCount()];
+		NestedCheese[] nested = new NestedCheese[groupCount];
+		for (int group = 0; group < groupCount; group++) {
+			if (cancelled.getAsBoolean()) throw new CancellationException();
+			traceGroup(cellSize, labeling, group, runTopLines, nested);
 		}
+		return nested;
+	}
 
-		@Override
-		public boolean equals(Object o) {
-			if (this == o) return true;
-			if (o == null || getClass() != o.getClass()) return false;
+	/**
+	 * Traces a single area for {@link #traceNested(Vector2d, RunLabeling)}. All areas before it must have been traced already.
+	 *
+	 * @param runTopLines The line that the top of every run is on, as recorded by the previous areas.
+	 * @param nested      The cheeses of the previous areas, where the cheese of this area is put as well.
+	 */
+	static void traceGroup(Vector2d cellSize, RunLabeling labeling, int group, long[] runTopLines, NestedCheese[] nested) {
+		BorderTracer tracer = groupTracer(labeling, group);
+		tracer.recordTopLines(labeling, group, runTopLines);
+		nestGroup(labeling, group, tracer.trace(cellSize), runTopLines, nested);
+	}
 
-			Edge edge = (Edge) o;
+	/**
+	 * Dense areas are cheaper to trace on a bitmap of their bounding box,
+	 * and all other areas are traced straight from their runs, so their cells are never copied.
+	 *
+	 * @return The tracer for a single area of the labeling
+	 */
+	static BorderTracer groupTracer(RunLabeling labeling, int group) {
+		BorderTracer tracer = RasterTracer.rasterize(labeling, group);
+		return tracer != null ? tracer : new RunTracer(labeling, group);
+	}
 
-			if (!from.equals(edge.from)) return false;
-			return to.equals(edge.to);
+	/**
+	 * Finishes a single area that was traced for {@link #traceNested(Vector2d, RunLabeling)}, by finding the hole that it is in.
+	 * The top lines of the area must have been recorded while tracing it.
+	 *
+	 * @param traced The traced area.
+	 * @see #traceGroup(Vector2d, RunLabeling, int, long[], NestedCheese[])
+	 */
+	static void nestGroup(RunLabeling labeling, int group, Cheese traced, long[] runTopLines, NestedCheese[] nested) {
+		NestedCheese cheese = new NestedCheese(traced);
+		int below = labeling.runBelow(group);
+		if (below >= 0) {
+			long line = runTopLines[below];
+			NestedCheese neighbour = nested[(int) (line >>> 32)];
+			int hole = (int) line - 1;
+			if (hole >= 0) cheese.setParent(neighbour, hole);
+			else if (neighbour.getParent() != null) cheese.setParent(neighbour.getParent(), neighbour.getParentHole());
 		}
+		nested[group] = cheese;
+	}
 
-		@Override
-		public int hashCode() {
-			int result = from.hashCode();
-			result = 31 * result + to.hashCode();
-			return result;
+	/**
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but traces the separate areas in parallel,
+	 * on the common {@link ForkJoinPool}.<br>
+	 * Useful for when there are many separate areas, like all claims on a server.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromChunksParallel(Vector2i... chunks) {
+		return createPlatterFromCellsParallel(CHUNK_CELL_SIZE, ForkJoinPool.commonPool(), chunks);
+	}
+
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but traces the separate areas in parallel,
+	 * on the common {@link ForkJoinPool}.<br>
+	 * Useful for when there are many separate areas, like all claims on a server.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromCellsParallel(Vector2d cellSize, Vector2i... cells) {
+		return createPlatterFromCellsParallel(cellSize, ForkJoinPool.commonPool(), cells);
+	}
+
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but traces the separate areas in parallel,
+	 * on the given {@link Executor}.<br>
+	 * The order of the cheeses is the same as with {@link #createPlatterFromCells(Vector2d, Vector2i...)}.
+	 * Small inputs are traced on the calling thread, as splitting them up would only add overhead.<br>
+	 * This method blocks until all areas have been traced.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param executor The executor to trace the areas on.
+	 * @param cells    The cells to create the cheese from.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public static Collection<Cheese> createPlatterFromCellsParallel(Vector2d cellSize, Executor executor, Vector2i... cells) {
+		if (cells.length < PARALLEL_THRESHOLD) return createPlatterFromCells(cellSize, cells);
+
+		long[] cellKeys = packCells(cells);
+		CellKey.sort(cellKeys, 0, cellKeys.length);
+		NestedCheese[] nested = traceNestedParallel(cellSize, RunLabeling.label(cellKeys), executor);
+		List<Cheese> platter = new ArrayList<>(nested.length);
+		for (NestedCheese cheese : nested) {
+			platter.add(cheese.getCheese());
+		}
+		return platter;
+	}
+
+	/**
+	 * Same as {@link #traceNested(Vector2d, RunLabeling)}, but traces ranges of areas in parallel, on the given {@link Executor}.<br>
+	 * Every area only records the top lines of its own runs, so the areas can be traced in any order.
+	 * The areas are then nested on the calling thread, in the order of their lowest cell, once all of them have been traced.
+	 */
+	static NestedCheese[] traceNestedParallel(Vector2d cellSize, RunLabeling labeling, Executor executor) {
+		int groupCount = labeling.groupCount();
+		long[] runTopLines = new long[labeling.runCount()];
+		Cheese[] traced = new Cheese[groupCount];
+
+		// group small areas into ranges of roughly PARALLEL_BATCH_SIZE cells, so each task is worth scheduling
+		List<CompletableFuture<Void>> batches = new ArrayList<>();
+		int batchStart = 0;
+		int batchSize = 0;
+		for (int group = 0; group < groupCount; group++) {
+			batchSize += labeling.groupSize(group);
+			if (batchSize >= PARALLEL_BATCH_SIZE || group == groupCount - 1) {
+				batches.add(traceGroupsAsync(cellSize, labeling, batchStart, group + 1, runTopLines, traced, executor));
+				batchStart = group + 1;
+				batchSize = 0;
+			}
+		}
+
+		try {
+			for (CompletableFuture<Void> future : batches) {
+				future.join();
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) throw cause;
+			throw e;
 		}
 
+		NestedCheese[] nested = new NestedCheese[groupCount];
+		for (int group = 0; group < groupCount; group++) {
+			nestGroup(labeling, group, traced[group], runTopLines, nested);
+		}
+		return nested;
 	}
 
-	private enum Direction {
-		UP,
-		RIGHT,
-		DOWN,
-		LEFT;
+	/**
+	 * Traces the areas from <code>fromGroup</code> (inclusive) to <code>toGroup</code> (exclusive) for {@link #traceNestedParallel(Vector2d, RunLabeling, Executor)}
+	 */
+	private static CompletableFuture<Void> traceGroupsAsync(Vector2d cellSize, RunLabeling labeling, int fromGroup, int toGroup, long[] runTopLines, Cheese[] traced, Executor executor) {
+		return CompletableFuture.runAsync(() -> {
+			for (int group = fromGroup; group < toGroup; group++) {
+				BorderTracer tracer = groupTracer(labeling, group);
+				tracer.recordTopLines(labeling, group, runTopLines);
+				traced[group] = tracer.trace(cellSize);
+			}
+		}, executor);
+	}
 
-		static {
-			UP.clockwise = RIGHT;
-			RIGHT.clockwise = DOWN;
-			DOWN.clockwise = LEFT;
-			LEFT.clockwise = UP;
+	/**
+	 * Same as {@link #createPlatterFromChunks(Vector2i...)}, but runs in the background, on a new virtual thread.
+	 *
+	 * @param chunks The chunks to create the cheese from. Must not be changed until the future is done.
+	 * @return A future that completes with a collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see #createPlatterFromCellsAsync(Vector2d, Executor, Vector2i...)
+	 */
+	public static CompletableFuture<Collection<Cheese>> createPlatterFromChunksAsync(Vector2i... chunks) {
+		return createPlatterFromCellsAsync(CHUNK_CELL_SIZE, VIRTUAL_THREADS, chunks);
+	}
 
-			UP.counterClockwise = LEFT;
-			LEFT.counterClockwise = DOWN;
-			DOWN.counterClockwise = RIGHT;
-			RIGHT.counterClockwise = UP;
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but runs in the background, on a new virtual thread.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from. Must not be changed until the future is done.
+	 * @return A future that completes with a collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see #createPlatterFromCellsAsync(Vector2d, Executor, Vector2i...)
+	 */
+	public static CompletableFuture<Collection<Cheese>> createPlatterFromCellsAsync(Vector2d cellSize, Vector2i... cells) {
+		return createPlatterFromCellsAsync(cellSize, VIRTUAL_THREADS, cells);
+	}
 
-			UP.opposite = DOWN;
-			LEFT.opposite = RIGHT;
-			DOWN.opposite = UP;
-			RIGHT.opposite = LEFT;
+	/**
+	 * Same as {@link #createPlatterFromCells(Vector2d, Vector2i...)}, but runs in the background, on the given {@link Executor}.<br>
+	 * When the future is cancelled, or completed in any other way, before the platter is done,
+	 * the computation stops before tracing the next area, so a platter that isn't needed anymore doesn't keep using the CPU.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param executor The executor to create the platter on.
+	 * @param cells    The cells to create the cheese from. Must not be changed until the future is done.
+	 * @return A future that completes with a collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see PlatterScheduler
+	 */
+	public static CompletableFuture<Collection<Cheese>> createPlatterFromCellsAsync(Vector2d cellSize, Executor executor, Vector2i... cells) {
+		CompletableFuture<Collection<Cheese>> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			if (future.isDone()) return;
+			try {
+				long[] cellKeys = packCells(cells);
+				CellKey.sort(cellKeys, 0, cellKeys.length);
+				if (future.isDone()) return;
+
+				NestedCheese[] nested = traceNested(cellSize, RunLabeling.label(cellKeys), future::isDone);
+				List<Cheese> platter = new ArrayList<>(nested.length);
+				for (NestedCheese cheese : nested) {
+					platter.add(cheese.getCheese());
+				}
+				future.complete(platter);
+			} catch (CancellationException e) {
+				// the future was already completed, so there is nobody left to tell
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
 
-			UP.vector = Vector2i.from(0, 1);
-			RIGHT.vector = Vector2i.from(1, 0);
-			DOWN.vector = Vector2i.from(0, -1);
-			LEFT.vector = Vector2i.from(-1, 0);
+	/**
+	 * Creates a single BlueMap {@link Shape} with potentially some holes, from a collection of custom-sized cells.<br>
+	 * Designed to be fed directly into a BlueMap {@link ShapeMarker} or {@link ExtrudeMarker}.<br>
+	 *
+	 * <h4>WARNING:</h4><b>This method assumes that all cells are connected!</b><br>
+	 * If you're not absolutely 100% sure that your cells will always be connected, use {@link #createPlatterFromCells(Vector2d, Vector2i...)} instead.<br>
+	 * If multiple disconnected areas are found, only the first one will be returned.<br>
+	 * Cells that fill at least a quarter of their bounding box, of at most 2<sup>30</sup> cells,
+	 * are traced on a bitmap, which gives the same result with far less memory.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return A single {@link Cheese} object representing a single connected area.
+	 */
+	public static Cheese createSingleFromCells(Vector2d cellSize, Vector2i... cells) {
+		return createSingleFromCellKeys(cellSize, packCells(cells));
+	}
+
+	/**
+	 * Same as {@link #createSingleFromCells(Vector2d, Vector2i...)}, but for cells that have been packed with {@link CellKey}.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return A single {@link Cheese} object representing a single connected area.
+	 */
+	public static Cheese createSingleFromCells(Vector2d cellSize, long[] cells) {
+		return createSingleFromCellKeys(cellSize, cells);
+	}
+
+	/**
+	 * Same as {@link #createSingleFromCells(Vector2d, Vector2i...)}, but without having to put the cells in an array first.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return A single {@link Cheese} object representing a single connected area.
+	 */
+	public static Cheese createSingleFromCells(Vector2d cellSize, Iterable<Vector2i> cells) {
+		return createSingleFromCellKeys(cellSize, packCells(cells));
+	}
+
+	/**
+	 * Traces packed cells, on a bitmap if they are dense enough, or with edges otherwise
+	 *
+	 * @param cellKeys The packed cells. This array is not modified.
+	 */
+	static Cheese createSingleFromCellKeys(Vector2d cellSize, long[] cellKeys) {
+		return createSingleFromCellKeys(cellSize, cellKeys, cellKeys.length);
+	}
+
+	/**
+	 * Same as {@link #createSingleFromCellKeys(Vector2d, long[])}, but only for the cells at the start of the array,
+	 * so a buffer can be reused
+	 *
+	 * @param count How many cells at the start of the array to use.
+	 */
+	static Cheese createSingleFromCellKeys(Vector2d cellSize, long[] cellKeys, int count) {
+		if (count == 0) throw new NoSuchElementException("No cells to create a cheese from");
+
+		// dense areas are cheaper to trace on a bitmap of their bounding box
+		RasterTracer raster = RasterTracer.rasterize(cellKeys, count);
+		if (raster != null) return raster.trace(cellSize);
+
+		return new EdgeTracer(cellKeys, count).trace(cellSize);
+	}
+
+	private static long[] packCells(Vector2i... cells) {
+		long[] cellKeys = new long[cells.length];
+		for (int i = 0; i < cells.length; i++) {
+			cellKeys[i] = CellKey.pack(cells[i]);
 		}
+		return cellKeys;
+	}
 
-		private Direction clockwise;
-		private Direction counterClockwise;
-		private Direction opposite;
+	private static long[] packCells(int[] xs, int[] ys) {
+		if (xs.length != ys.length) throw new IllegalArgumentException("xs and ys must have the same length");
+		long[] cellKeys = new long[xs.length];
+		for (int i = 0; i < xs.length; i++) {
+			cellKeys[i] = CellKey.pack(xs[i], ys[i]);
+		}
+		return cellKeys;
+	}
 
-		public Vector2i vector;
+	private static long[] packCells(Iterable<Vector2i> cells) {
+		LongArrayList cellKeys = new LongArrayList(cells instanceof Collection<?> collection ? collection.size() : 16);
+		for (Vector2i cell : cells) {
+			cellKeys.add(CellKey.pack(cell));
+		}
+		return cellKeys.toArray();
 	}
 }
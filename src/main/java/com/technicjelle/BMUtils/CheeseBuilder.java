@@ -0,0 +1,120 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.Arrays;
+
+/**
+ * Collects the lines of a {@link Cheese} straight into its packed coordinate buffer, point by point.<br>
+ * The first line is the outline, and all following lines are holes.<br>
+ * The area, perimeter and bounds of the cheese are added up along the way, so they don't need another pass over the points.
+ */
+final class CheeseBuilder {
+	/**
+	 * The x and y coordinates of all points, interleaved
+	 */
+	private double[] coordinates;
+	/**
+	 * The index of the first point of every line, followed by the total amount of points
+	 */
+	private int[] lineStarts = new int[4];
+	private int pointCount = 0;
+	private int lineCount = 0;
+
+	// measurements of the finished lines
+	double outlineArea = 0;
+	double holeArea = 0;
+	double perimeter = 0;
+	double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+	double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+	// measurements of the current line
+	/** Twice the signed area, from the shoelace formula */
+	private double lineArea2 = 0;
+	private double lineLength = 0;
+
+	CheeseBuilder() {
+		this(16);
+	}
+
+	CheeseBuilder(int expectedPoints) {
+		coordinates = new double[Math.max(8, expectedPoints * 2)];
+	}
+
+	void addPoint(double x, double y) {
+		int index = pointCount * 2;
+		if (index + 2 > coordinates.length) {
+			coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+		}
+		coordinates[index] = x;
+		coordinates[index + 1] = y;
+
+		if (pointCount > lineStarts[lineCount]) addSide(coordinates[index - 2], coordinates[index - 1], x, y);
+		minX = Math.min(minX, x);
+		minY = Math.min(minY, y);
+		maxX = Math.max(maxX, x);
+		maxY = Math.max(maxY, y);
+		pointCount++;
+	}
+
+	private void addSide(double fromX, double fromY, double toX, double toY) {
+		lineArea2 += fromX * toY - toX * fromY;
+		lineLength += Math.hypot(toX - fromX, toY - fromY);
+	}
+
+	/**
+	 * Finishes the current line. All points that were added since the previous line was finished are part of it.
+	 *
+	 * @throws IllegalStateException If the line has fewer than three points
+	 */
+	void endLine() {
+		int start = lineStarts[lineCount];
+		if (pointCount - start < 3) throw new IllegalStateException("A line needs at least 3 points");
+		if (lineCount + 2 > lineStarts.length) {
+			lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+		}
+
+		// close the line
+		int last = (pointCount - 1) * 2;
+		addSide(coordinates[last], coordinates[last + 1], coordinates[start * 2], coordinates[start * 2 + 1]);
+		double area = Math.abs(lineArea2) / 2;
+		if (lineCount == 0) outlineArea = area;
+		else holeArea += area;
+		perimeter += lineLength;
+		lineArea2 = 0;
+		lineLength = 0;
+
+		lineStarts[++lineCount] = pointCount;
+	}
+
+	int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @throws IllegalStateException If no lines were finished, or the last line wasn't finished
+	 */
+	Cheese build() {
+		if (lineCount == 0) throw new IllegalStateException("A cheese needs an outline");
+		if (lineStarts[lineCount] != pointCount) throw new IllegalStateException("The last line was not finished");
+		return new Cheese(this);
+	}
+
+	double[] coordinates() {
+		return Arrays.copyOf(coordinates, pointCount * 2);
+	}
+
+	int[] lineStarts() {
+		return Arrays.copyOf(lineStarts, lineCount + 1);
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of platters, so unchanged cells don't have to be traced again.<br>
+ * The platters are looked up by an order-independent hash of the cells and the cell size,
+ * so a hit only costs a single pass over the cells. When the cache is full, the least recently used platter is evicted.<br>
+ * <br>
+ * Useful for markers that are refreshed regularly, while the cells rarely change.<br>
+ * This class is thread-safe. The returned collections are shared between callers, and can not be modified.
+ */
+public class CheeseCache {
+	private final int maxEntries;
+	private final Map<Key, Collection<Cheese>> platters;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Creates a new, empty cache.
+	 *
+	 * @param maxEntries The maximum amount of platters to keep.
+	 */
+	public CheeseCache(int maxEntries) {
+		if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be at least 1");
+		this.maxEntries = maxEntries;
+		this.platters = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Collection<Cheese>> eldest) {
+				if (size() <= CheeseCache.this.maxEntries) return false;
+				evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Same as {@link Cheese#createPlatterFromChunks(Vector2i...)}, but returns the cached platter if the same chunks were used before.
+	 *
+	 * @param chunks The chunks to create the cheese from.
+	 * @return An unmodifiable collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public Collection<Cheese> createPlatterFromChunks(Vector2i... chunks) {
+		return createPlatterFromCells(Cheese.CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Same as {@link Cheese#createPlatterFromChunks(long[])}, but returns the cached platter if the same chunks were used before.
+	 *
+	 * @param chunks The packed chunks to create the cheese from. This array is not modified.
+	 * @return An unmodifiable collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public Collection<Cheese> createPlatterFromChunks(long[] chunks) {
+		return createPlatterFromCells(Cheese.CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Same as {@link Cheese#createPlatterFromCells(Vector2d, Vector2i...)}, but returns the cached platter if the same cells were used before.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from.
+	 * @return An unmodifiable collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public Collection<Cheese> createPlatterFromCells(Vector2d cellSize, Vector2i... cells) {
+		// hash without packing the cells into an array first, as that is only needed on a miss
+		CellSetHash hash = new CellSetHash();
+		for (Vector2i cell : cells) {
+			hash.add(CellKey.pack(cell));
+		}
+		Key key = new Key(hash, cellSize);
+
+		Collection<Cheese> platter = lookup(key);
+		if (platter != null) return platter;
+		return store(key, Cheese.createPlatterFromCells(cellSize, cells));
+	}
+
+	/**
+	 * Same as {@link Cheese#createPlatterFromCells(Vector2d, long[])}, but returns the cached platter if the same cells were used before.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return An unmodifiable collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public Collection<Cheese> createPlatterFromCells(Vector2d cellSize, long[] cells) {
+		Key key = new Key(CellSetHash.of(cells), cellSize);
+
+		Collection<Cheese> platter = lookup(key);
+		if (platter != null) return platter;
+		return store(key, Cheese.createPlatterFromCells(cellSize, cells));
+	}
+
+	/**
+	 * @return The amount of platters that were found in the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return The amount of platters that were not found in the cache, and had to be traced.
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * @return The amount of platters that were removed from the cache to make room for new ones.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * @return The amount of platters currently in the cache.
+	 */
+	public synchronized int size() {
+		return platters.size();
+	}
+
+	/**
+	 * Removes all platters from the cache. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		platters.clear();
+	}
+
+	private synchronized Collection<Cheese> lookup(Key key) {
+		Collection<Cheese> platter = platters.get(key);
+		if (platter != null) hits++;
+		else misses++;
+		return platter;
+	}
+
+	/**
+	 * Stores a platter that was traced outside the lock, so other threads could still get hits in the meantime
+	 */
+	private synchronized Collection<Cheese> store(Key key, Collection<Cheese> platter) {
+		Collection<Cheese> unmodifiable = Collections.unmodifiableList(new ArrayList<>(platter));
+		platters.put(key, unmodifiable);
+		return unmodifiable;
+	}
+
+	private record Key(long hashA, long hashB, int count, double cellWidth, double cellHeight) {
+		private Key(CellSetHash hash, Vector2d cellSize) {
+			this(hash.getHashA(), hash.getHashB(), hash.getCount(), cellSize.getX(), cellSize.getY());
+		}
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes platters in a compact binary format, so they can be stored on disk,
+ * and loaded again after a restart, instead of tracing all cells again.<br>
+ * <br>
+ * The header holds the cell size and an order-independent hash of the cells that the platter was created from,
+ * so a stored platter is only used when it was created from the same cells.
+ * The points of every line are stored as the difference to the previous point, in whole cells,
+ * as zig-zag varints, which takes one or two bytes for most points.
+ * Platters with points that don't lie on the corners of the cells, like ones created from {@link de.bluecolored.bluemap.api.math.Shape}s directly,
+ * are stored with their full coordinates instead.
+ *
+ * @see #loadOrCreatePlatter(Path, Vector2d, long[])
+ */
+public final class CheeseCodec {
+	/** "BMCH" */
+	private static final int MAGIC = 0x424D4348;
+	private static final int VERSION = 1;
+	private static final int FLAG_CELL_COORDINATES = 1;
+
+	private CheeseCodec() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Writes a platter, together with the cells it was created from.
+	 *
+	 * @param out      The stream to write to. It is not closed.
+	 * @param cellSize The size of a single cell that the platter was created with.
+	 * @param cells    The packed cells that the platter was created from. This array is not modified.
+	 * @param platter  The platter to write.
+	 * @throws IOException If the stream can not be written to.
+	 */
+	public static void write(OutputStream out, Vector2d cellSize, long[] cells, Collection<Cheese> platter) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		CellSetHash hash = CellSetHash.of(cells);
+		boolean onCells = isOnCellCorners(cellSize, platter);
+
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeDouble(cellSize.getX());
+		data.writeDouble(cellSize.getY());
+		data.writeLong(hash.getHashA());
+		data.writeLong(hash.getHashB());
+		data.writeInt(hash.getCount());
+		data.writeByte(onCells ? FLAG_CELL_COORDINATES : 0);
+
+		writeVarLong(data, platter.size());
+		long previousX = 0, previousY = 0;
+		for (Cheese cheese : platter) {
+			writeVarLong(data, cheese.getLineCount());
+			for (int line = 0; line < cheese.getLineCount(); line++) {
+				int points = cheese.getPointCount(line);
+				writeVarLong(data, points);
+				for (int point = 0; point < points; point++) {
+					double x = cheese.getX(line, point), y = cheese.getY(line, point);
+					if (!onCells) {
+						data.writeDouble(x);
+						data.writeDouble(y);
+						continue;
+					}
+					long cellX = Math.round(x / cellSize.getX()), cellY = Math.round(y / cellSize.getY());
+					writeVarLong(data, zigZag(cellX - previousX));
+					writeVarLong(data, zigZag(cellY - previousY));
+					previousX = cellX;
+					previousY = cellY;
+				}
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads a platter, but only if it was written with the same cell size, and created from the same cells.<br>
+	 * The order of the cells doesn't matter.
+	 *
+	 * @param in       The stream to read from. It is not closed, and not buffered, so only the platter is read from it.
+	 * @param cellSize The size of a single cell that the platter should have been created with.
+	 * @param cells    The packed cells that the platter should have been created from. This array is not modified.
+	 * @return The platter, or <code>null</code> if it was created with a different cell size, from different cells,
+	 * or by a different version of this format.
+	 * @throws IOException If the stream can not be read from, or doesn't contain a platter.
+	 */
+	public static @Nullable Collection<Cheese> read(InputStream in, Vector2d cellSize, long[] cells) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		Header header = readHeader(data);
+		if (header == null) return null;
+
+		CellSetHash hash = CellSetHash.of(cells);
+		if (header.cellWidth != cellSize.getX() || header.cellHeight != cellSize.getY()
+				|| header.hashA != hash.getHashA() || header.hashB != hash.getHashB() || header.count != hash.getCount()) {
+			return null;
+		}
+		return readPlatter(data, header);
+	}
+
+	/**
+	 * Reads a platter, without checking which cells it was created from.
+	 *
+	 * @param in The stream to read from. It is not closed, and not buffered, so only the platter is read from it.
+	 * @return The platter.
+	 * @throws IOException If the stream can not be read from, doesn't contain a platter,
+	 *                     or contains a platter of a different version of this format.
+	 */
+	public static Collection<Cheese> read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		Header header = readHeader(data);
+		if (header == null) throw new IOException("Unsupported cheese format version");
+		return readPlatter(data, header);
+	}
+
+	/**
+	 * Loads the platter from a file if it was created from the same cells,
+	 * and otherwise creates it with {@link Cheese#createPlatterFromCells(Vector2d, long[])}, and stores it in the file for next time.<br>
+	 * A file that can not be read, is broken, or was cut off, is treated the same as a file that was created from different cells.<br>
+	 * The file is written to a temporary file next to it first, which then replaces it in one go,
+	 * so a crash or a second server that reads it at the same time never sees a half-written file.
+	 *
+	 * @param file     The file to store the platter in.
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The packed cells to create the cheese from. This array is not modified.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @throws IOException If the file can not be written to.
+	 */
+	public static Collection<Cheese> loadOrCreatePlatter(Path file, Vector2d cellSize, long[] cells) throws IOException {
+		if (Files.isRegularFile(file)) {
+			try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+				Collection<Cheese> platter = read(in, cellSize, cells);
+				// anything after the platter means the file is not what it seems to be
+				if (platter != null && in.read() == -1) return platter;
+			} catch (IOException | RuntimeException e) {
+				// broken or truncated, so create it again
+			}
+		}
+
+		Collection<Cheese> platter = Cheese.createPlatterFromCells(cellSize, cells);
+		Path absolute = file.toAbsolutePath();
+		Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temporary)) {
+				write(out, cellSize, cells, platter);
+			}
+			try {
+				Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		return platter;
+	}
+
+	private record Header(double cellWidth, double cellHeight, long hashA, long hashB, int count, int flags) {
+	}
+
+	/**
+	 * @return The header, or <code>null</code> if the platter was written by a different version of this format
+	 */
+	private static @Nullable Header readHeader(DataInput data) throws IOException {
+		if (data.readInt() != MAGIC) throw new IOException("Not a cheese platter");
+		if (data.readUnsignedByte() != VERSION) return null;
+		return new Header(data.readDouble(), data.readDouble(), data.readLong(), data.readLong(), data.readInt(), data.readUnsignedByte());
+	}
+
+	private static Collection<Cheese> readPlatter(DataInput data, Header header) throws IOException {
+		boolean onCells = (header.flags & FLAG_CELL_COORDINATES) != 0;
+		int cheeses = readCount(data);
+		List<Cheese> platter = new ArrayList<>(Math.min(cheeses, 1024));
+		long previousX = 0, previousY = 0;
+		try {
+			for (int i = 0; i < cheeses; i++) {
+				CheeseBuilder builder = new CheeseBuilder();
+				int lines = readCount(data);
+				for (int line = 0; line < lines; line++) {
+					int points = readCount(data);
+					for (int point = 0; point < points; point++) {
+						if (!onCells) {
+							builder.addPoint(data.readDouble(), data.readDouble());
+							continue;
+						}
+						previousX += unZigZag(readVarLong(data));
+						previousY += unZigZag(readVarLong(data));
+						builder.addPoint(previousX * header.cellWidth, previousY * header.cellHeight);
+					}
+					builder.endLine();
+				}
+				platter.add(builder.build());
+			}
+		} catch (IllegalStateException e) {
+			throw new IOException("Broken cheese: " + e.getMessage(), e);
+		}
+		return platter;
+	}
+
+	/**
+	 * @return Whether every point of every cheese lies exactly on the corner of a cell
+	 */
+	private static boolean isOnCellCorners(Vector2d cellSize, Collection<Cheese> platter) {
+		for (Cheese cheese : platter) {
+			for (int line = 0; line < cheese.getLineCount(); line++) {
+				for (int point = 0; point < cheese.getPointCount(line); point++) {
+					double x = cheese.getX(line, point), y = cheese.getY(line, point);
+					if (Math.round(x / cellSize.getX()) * cellSize.getX() != x) return false;
+					if (Math.round(y / cellSize.getY()) * cellSize.getY() != y) return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarLong(DataOutput data, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			data.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		data.writeByte((int) value);
+	}
+
+	private static long readVarLong(DataInput data) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = data.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Varint is too long");
+	}
+
+	private static int readCount(DataInput data) throws IOException {
+		long count = readVarLong(data);
+		if (count < 0 || count > Integer.MAX_VALUE) throw new IOException("Invalid count: " + count);
+		return (int) count;
+	}
+}
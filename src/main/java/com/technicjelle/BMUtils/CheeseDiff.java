@@ -0,0 +1,135 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.api.markers.MarkerSet;
+import de.bluecolored.bluemap.api.markers.ShapeMarker;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The differences between an old and a new platter, so only the markers of the cheeses that actually changed have to be replaced.<br>
+ * <br>
+ * Every cheese gets a key that stays the same when the cheese changes, as long as its lowest corner (first by x, then by y) stays in place.
+ * Use {@link #createKeys(Collection)} to get the keys of a whole platter, for example as the ids of the markers in a {@link MarkerSet}.
+ * After that, {@link #compare(Collection, Collection)} tells which of those markers have to be added, removed or replaced.<br>
+ * A cheese that grows past its lowest corner gets a new key, so it shows up as removed under the old key, and added under the new one.
+ */
+public class CheeseDiff {
+	private final Map<String, Cheese> added;
+	private final Map<String, Cheese> removed;
+	private final Map<String, Cheese> changed;
+
+	private CheeseDiff(Map<String, Cheese> added, Map<String, Cheese> removed, Map<String, Cheese> changed) {
+		this.added = Collections.unmodifiableMap(added);
+		this.removed = Collections.unmodifiableMap(removed);
+		this.changed = Collections.unmodifiableMap(changed);
+	}
+
+	/**
+	 * Compares two platters, like two results of {@link Cheese#createPlatterFromChunks(Vector2i...)}.
+	 *
+	 * @param previous The old platter.
+	 * @param current  The new platter.
+	 * @return The differences between the two platters.
+	 */
+	public static CheeseDiff compare(Collection<Cheese> previous, Collection<Cheese> current) {
+		Map<String, Cheese> previousKeys = createKeys(previous);
+		Map<String, Cheese> added = new LinkedHashMap<>();
+		Map<String, Cheese> changed = new LinkedHashMap<>();
+		for (Map.Entry<String, Cheese> entry : createKeys(current).entrySet()) {
+			Cheese old = previousKeys.remove(entry.getKey());
+			if (old == null) added.put(entry.getKey(), entry.getValue());
+			else if (old != entry.getValue() && !old.hasSamePoints(entry.getValue())) changed.put(entry.getKey(), entry.getValue());
+		}
+		// everything that is left over wasn't in the new platter anymore
+		return new CheeseDiff(added, previousKeys, changed);
+	}
+
+	/**
+	 * Gives every cheese of a platter a key, based on the lowest corner of its outline.<br>
+	 * The cheeses of a platter never share their lowest corner. If they do anyway, because they come from different platters,
+	 * the later ones get a number added to their key.
+	 *
+	 * @param platter The cheeses to create the keys for.
+	 * @return A map from key to cheese, in the same order as the platter.
+	 */
+	public static Map<String, Cheese> createKeys(Collection<Cheese> platter) {
+		Map<String, Cheese> keys = new LinkedHashMap<>();
+		for (Cheese cheese : platter) {
+			String key = getKey(cheese);
+			if (keys.containsKey(key)) {
+				int n = 2;
+				while (keys.containsKey(key + "_" + n)) n++;
+				key = key + "_" + n;
+			}
+			keys.put(key, cheese);
+		}
+		return keys;
+	}
+
+	/**
+	 * @param cheese The cheese to get the key of.
+	 * @return The key of the cheese, based on the lowest corner of its outline (first by x, then by y).
+	 */
+	public static String getKey(Cheese cheese) {
+		double lowestX = cheese.getX(0, 0), lowestY = cheese.getY(0, 0);
+		for (int i = 1; i < cheese.getPointCount(0); i++) {
+			double x = cheese.getX(0, i), y = cheese.getY(0, i);
+			if (x < lowestX || (x == lowestX && y < lowestY)) {
+				lowestX = x;
+				lowestY = y;
+			}
+		}
+		return "cheese_" + format(lowestX) + "_" + format(lowestY);
+	}
+
+	private static String format(double value) {
+		// most corners are on whole blocks, so leave out the useless ".0"
+		if (value == (long) value) return Long.toString((long) value);
+		return Double.toString(value);
+	}
+
+	/**
+	 * @return Whether the platters are exactly the same.
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	/**
+	 * @return The cheeses that are only in the new platter, by key. A new marker has to be added for these.
+	 */
+	public Map<String, Cheese> getAdded() {
+		return added;
+	}
+
+	/**
+	 * @return The cheeses that are only in the old platter, by key. Their markers have to be removed.
+	 */
+	public Map<String, Cheese> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return The new versions of the cheeses that are in both platters, but have a different shape or holes, by key.
+	 * Their {@link ShapeMarker}s have to be updated.
+	 */
+	public Map<String, Cheese> getChanged() {
+		return changed;
+	}
+}
@@ -0,0 +1,737 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import de.bluecolored.bluemap.api.markers.ExtrudeMarker;
+import de.bluecolored.bluemap.api.markers.ShapeMarker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A platter of {@link Cheese}s that can be edited one cell at a time.<br>
+ * It keeps track of the connected areas and of their border lines between edits, so after adding or removing a few cells,
+ * only the lines that go past those cells need to be traced again,
+ * instead of the whole platter, like {@link Cheese#createPlatterFromCells(Vector2d, Vector2i...)} does.<br>
+ * <br>
+ * Call {@link #update()} after a batch of edits, to find out which cheeses have to be replaced.<br>
+ * An update follows only the lines that touch a corner of an edited cell, so it takes O(p) time for lines with a total length of p.
+ * When an outline is traced again, so are the holes that touch it at a corner, as they may have to be followed differently now.
+ * The lines of an edited area are then put together into a new cheese, which only copies their corners.<br>
+ * Every border edge is remembered with the line it is on, so a platter takes more memory than the cheeses alone.<br>
+ * This class is not thread-safe.
+ */
+public class CheesePlatter {
+	private static final int[] NEIGHBOUR_X = {0, 1, 0, -1};
+	private static final int[] NEIGHBOUR_Y = {1, 0, -1, 0};
+
+	private final Vector2d cellSize;
+	private final LongObjectMap<Area> cellAreas = new LongObjectMap<>();
+	private final Set<Area> areas = new LinkedHashSet<>();
+	private final Set<Area> dirtyAreas = new LinkedHashSet<>();
+
+	// the line that every border edge is on: horizontal edges by the cell above them, vertical edges by the cell right of them
+	private final LongObjectMap<Line> horizontalEdges = new LongObjectMap<>();
+	private final LongObjectMap<Line> verticalEdges = new LongObjectMap<>();
+	/** The lines that have to be traced again */
+	private final List<Line> dirtyLines = new ArrayList<>();
+	/** The cells that were added or removed since the last trace, whose sides may be new border edges */
+	private final LongArrayList editedCells = new LongArrayList();
+	/** Reused for the corners of every line that is followed */
+	private final LongArrayList corners = new LongArrayList();
+
+	// changes since the last call to update()
+	private final Set<Cheese> added = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Cheese> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	/**
+	 * Creates a new, empty platter for chunks.
+	 */
+	public CheesePlatter() {
+		this(Cheese.CHUNK_CELL_SIZE);
+	}
+
+	/**
+	 * Creates a new, empty platter for custom-sized cells.
+	 *
+	 * @param cellSize The size of a single cell.
+	 */
+	public CheesePlatter(Vector2d cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * @return The size of a single cell.
+	 */
+	public Vector2d getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * @return The amount of cells on the platter.
+	 */
+	public int getCellCount() {
+		return cellAreas.size();
+	}
+
+	/**
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell is on the platter.
+	 */
+	public boolean containsCell(int x, int y) {
+		return cellAreas.containsKey(CellKey.pack(x, y));
+	}
+
+	/**
+	 * @param cell The cell.
+	 * @return Whether the cell is on the platter.
+	 */
+	public boolean containsCell(Vector2i cell) {
+		return containsCell(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Adds a cell to the platter, merging it into the areas it touches.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return <code>true</code> if the cell was not on the platter yet.
+	 */
+	public boolean addCell(int x, int y) {
+		long key = CellKey.pack(x, y);
+		if (cellAreas.containsKey(key)) return false;
+		edited(x, y);
+
+		Area area = null;
+		for (int i = 0; i < 4; i++) {
+			Area neighbour = cellAreas.get(CellKey.pack(x + NEIGHBOUR_X[i], y + NEIGHBOUR_Y[i]));
+			if (neighbour == null || neighbour == area) continue;
+			area = area == null ? neighbour : merge(area, neighbour);
+		}
+		if (area == null) {
+			area = new Area();
+			areas.add(area);
+		}
+
+		area.cells.add(key);
+		cellAreas.put(key, area);
+		dirtyAreas.add(area);
+		return true;
+	}
+
+	/**
+	 * Adds a cell to the platter, merging it into the areas it touches.
+	 *
+	 * @param cell The cell to add.
+	 * @return <code>true</code> if the cell was not on the platter yet.
+	 */
+	public boolean addCell(Vector2i cell) {
+		return addCell(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Adds multiple cells to the platter.
+	 *
+	 * @param cells The cells to add.
+	 */
+	public void addCells(Vector2i... cells) {
+		for (Vector2i cell : cells) {
+			addCell(cell.getX(), cell.getY());
+		}
+	}
+
+	/**
+	 * Removes a cell from the platter, splitting its area if it was the only connection between parts of it.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return <code>true</code> if the cell was on the platter.
+	 */
+	public boolean removeCell(int x, int y) {
+		long key = CellKey.pack(x, y);
+		Area area = cellAreas.remove(key);
+		if (area == null) return false;
+		edited(x, y);
+
+		area.cells.remove(key);
+		if (area.cells.isEmpty()) {
+			discard(area);
+			return true;
+		}
+		dirtyAreas.add(area);
+
+		// the area can only have been split if the cell connected multiple of its neighbours
+		long[] neighbours = new long[4];
+		int neighbourCount = 0;
+		for (int i = 0; i < 4; i++) {
+			long neighbour = CellKey.pack(x + NEIGHBOUR_X[i], y + NEIGHBOUR_Y[i]);
+			if (cellAreas.get(neighbour) == area) neighbours[neighbourCount++] = neighbour;
+		}
+		if (neighbourCount > 1) split(area, neighbours, neighbourCount);
+
+		return true;
+	}
+
+	/**
+	 * Removes a cell from the platter, splitting its area if it was the only connection between parts of it.
+	 *
+	 * @param cell The cell to remove.
+	 * @return <code>true</code> if the cell was on the platter.
+	 */
+	public boolean removeCell(Vector2i cell) {
+		return removeCell(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Removes multiple cells from the platter.
+	 *
+	 * @param cells The cells to remove.
+	 */
+	public void removeCells(Vector2i... cells) {
+		for (Vector2i cell : cells) {
+			removeCell(cell.getX(), cell.getY());
+		}
+	}
+
+	/**
+	 * Traces all areas that were changed since they were last traced,
+	 * and returns which cheeses have changed since the last call to this method.<br>
+	 * Designed to be used for updating only the {@link ShapeMarker}s or {@link ExtrudeMarker}s that actually changed.
+	 *
+	 * @return The cheeses that were added to and removed from the platter.
+	 */
+	public Changes update() {
+		retrace();
+		Changes changes = new Changes(new ArrayList<>(added), new ArrayList<>(removed));
+		added.clear();
+		removed.clear();
+		return changes;
+	}
+
+	/**
+	 * Gets all cheeses that are currently on the platter, tracing any areas that were changed.<br>
+	 * Changes are still reported by the next call to {@link #update()}.
+	 *
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 */
+	public Collection<Cheese> getCheeses() {
+		retrace();
+		List<Cheese> cheeses = new ArrayList<>(areas.size());
+		for (Area area : areas) {
+			cheeses.add(area.cheese);
+		}
+		return cheeses;
+	}
+
+	/**
+	 * Takes the dirty lines off the platter, follows the border again from their edges and from the sides of the edited cells,
+	 * and puts the changed areas together into new cheeses.<br>
+	 * The lines come out exactly the same as when the whole area is traced at once:
+	 * an outline is followed with the most clockwise turns, and a hole with the most counterclockwise turns,
+	 * and the edges of the lines that are kept are never taken, so the new lines go around them the same way as before.
+	 */
+	private void retrace() {
+		// a changed outline can change how the holes that touch it at a corner are followed
+		for (int i = 0, size = dirtyLines.size(); i < size; i++) {
+			Line line = dirtyLines.get(i);
+			if (!line.outline) continue;
+			forEachEdge(line.corners, (x, y, direction) -> {
+				if (isSaddle(x, y)) markLinesAt(x, y);
+			});
+		}
+
+		LongArrayList horizontalStarts = new LongArrayList();
+		LongArrayList verticalStarts = new LongArrayList();
+		for (Line line : dirtyLines) {
+			forEachEdge(line.corners, (x, y, direction) -> {
+				long key = edgeKey(x, y, direction);
+				edges(direction).remove(key);
+				(isVertical(direction) ? verticalStarts : horizontalStarts).add(key);
+			});
+			Area area = line.area;
+			if (area.outline == line) area.outline = null;
+			else area.holes.remove(line);
+			dirtyAreas.add(area);
+		}
+		dirtyLines.clear();
+		for (int i = 0; i < editedCells.size(); i++) {
+			long cell = editedCells.get(i);
+			int x = CellKey.x(cell), y = CellKey.y(cell);
+			horizontalStarts.add(cell);
+			horizontalStarts.add(CellKey.pack(x, y + 1));
+			verticalStarts.add(cell);
+			verticalStarts.add(CellKey.pack(x + 1, y));
+		}
+		editedCells.clear();
+
+		// the outlines first, so the holes that touch them at a corner can only go around them
+		LongHashSet seenHorizontal = new LongHashSet(), seenVertical = new LongHashSet();
+		for (int i = 0; i < horizontalStarts.size(); i++) traceFrom(horizontalEdges, horizontalStarts.get(i), seenHorizontal, seenVertical);
+		for (int i = 0; i < verticalStarts.size(); i++) traceFrom(verticalEdges, verticalStarts.get(i), seenHorizontal, seenVertical);
+		for (int i = 0; i < horizontalStarts.size(); i++) traceFrom(horizontalEdges, horizontalStarts.get(i), null, null);
+		for (int i = 0; i < verticalStarts.size(); i++) traceFrom(verticalEdges, verticalStarts.get(i), null, null);
+
+		for (Area area : dirtyAreas) {
+			if (areas.contains(area)) rebuild(area);
+		}
+		dirtyAreas.clear();
+	}
+
+	/**
+	 * Follows a new line from a border edge that is not on any line yet, if there is one
+	 *
+	 * @param key            The key of the edge in the map.
+	 * @param seenHorizontal The edges of the lines that were followed while looking for outlines, but turned out to be holes,
+	 *                       or <code>null</code> to follow holes instead.
+	 */
+	private void traceFrom(LongObjectMap<Line> edges, long key, LongHashSet seenHorizontal, LongHashSet seenVertical) {
+		if (edges.containsKey(key)) return;
+		boolean horizontal = edges == horizontalEdges;
+		int x = CellKey.x(key), y = CellKey.y(key);
+		// the cell the edge is keyed by, and the cell on its other side
+		Area keyed = cellAreas.get(key);
+		Area other = cellAreas.get(horizontal ? CellKey.pack(x, y - 1) : CellKey.pack(x - 1, y));
+		if ((keyed == null) == (other == null)) return;
+
+		// the inside is always on the left
+		Area area = keyed != null ? keyed : other;
+		int direction;
+		if (horizontal) {
+			direction = keyed != null ? BorderTracer.RIGHT : BorderTracer.LEFT;
+			if (keyed == null) x++;
+		} else {
+			direction = keyed != null ? BorderTracer.DOWN : BorderTracer.UP;
+			if (keyed != null) y++;
+		}
+
+		if (seenHorizontal == null) {
+			addLine(area, follow(area, x, y, direction, false), false);
+			return;
+		}
+		if (area.outline != null || (horizontal ? seenHorizontal : seenVertical).contains(key)) return;
+		long[] lineCorners = follow(area, x, y, direction, true);
+		if (isCounterclockwise(lineCorners)) {
+			addLine(area, lineCorners, true);
+		} else {
+			forEachEdge(lineCorners, (edgeX, edgeY, edgeDirection) ->
+					(isVertical(edgeDirection) ? seenVertical : seenHorizontal).add(edgeKey(edgeX, edgeY, edgeDirection)));
+		}
+	}
+
+	/**
+	 * Follows the border of the area from the edge until it gets back to it, without taking edges that are on a line already.<br>
+	 * Only the corners are kept, in the same order as a {@link BorderTracer} adds them: starting after the lowest one, which is moved to the end.
+	 */
+	private long[] follow(Area area, int startX, int startY, int startDirection, boolean clockwiseFirst) {
+		corners.clear();
+		int x = startX, y = startY, direction = startDirection;
+		while (true) {
+			x += BorderTracer.DX[direction];
+			y += BorderTracer.DY[direction];
+			int outgoing = outgoing(area, x, y);
+			if (outgoing == 0) throw new IllegalStateException("Loose end"); // should never happen
+
+			int next = BorderTracer.turn(outgoing, direction, clockwiseFirst);
+			if (next != direction) corners.add(CellKey.pack(x, y));
+			if (x == startX && y == startY && next == startDirection) break;
+			direction = next;
+		}
+
+		int size = corners.size();
+		int lowest = 0;
+		for (int i = 1; i < size; i++) {
+			if (Long.compareUnsigned(CellKey.sortKey(corners.get(i)), CellKey.sortKey(corners.get(lowest))) < 0) lowest = i;
+		}
+		long[] result = new long[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = corners.get((lowest + 1 + i) % size);
+		}
+		return result;
+	}
+
+	/**
+	 * @return A bitmask of the border edges of the area that leave the vertex and are not on a line yet, indexed by direction
+	 */
+	private int outgoing(Area area, int x, int y) {
+		boolean topRight = area.cells.contains(CellKey.pack(x, y));
+		boolean topLeft = area.cells.contains(CellKey.pack(x - 1, y));
+		boolean bottomLeft = area.cells.contains(CellKey.pack(x - 1, y - 1));
+		boolean bottomRight = area.cells.contains(CellKey.pack(x, y - 1));
+		int mask = 0;
+		if (topLeft && !topRight) mask |= 1 << BorderTracer.UP;
+		if (topRight && !bottomRight) mask |= 1 << BorderTracer.RIGHT;
+		if (bottomRight && !bottomLeft) mask |= 1 << BorderTracer.DOWN;
+		if (bottomLeft && !topLeft) mask |= 1 << BorderTracer.LEFT;
+		for (int direction = 0; direction < 4; direction++) {
+			if ((mask >>> direction & 1) != 0 && edges(direction).containsKey(edgeKey(x, y, direction))) mask &= ~(1 << direction);
+		}
+		return mask;
+	}
+
+	private void addLine(Area area, long[] lineCorners, boolean outline) {
+		Line line = new Line(lineCorners, outline, area);
+		forEachEdge(lineCorners, (x, y, direction) -> edges(direction).put(edgeKey(x, y, direction), line));
+		if (outline) area.outline = line;
+		else area.holes.add(line);
+		dirtyAreas.add(area);
+	}
+
+	/**
+	 * Puts the lines of the area together into a new cheese, in the same order as a {@link BorderTracer}:
+	 * the outline first, and then the holes by their lowest corner.
+	 * If the lines are still the same, the cheese is kept.
+	 */
+	private void rebuild(Area area) {
+		if (area.outline == null) throw new IllegalStateException("Area has no outline"); // should never happen
+		List<Line> holes = new ArrayList<>(area.holes);
+		holes.sort((a, b) -> Long.compareUnsigned(CellKey.sortKey(a.lowestCorner()), CellKey.sortKey(b.lowestCorner())));
+		long[][] lines = new long[holes.size() + 1][];
+		lines[0] = area.outline.corners;
+		int pointCount = lines[0].length;
+		for (int i = 0; i < holes.size(); i++) {
+			lines[i + 1] = holes.get(i).corners;
+			pointCount += lines[i + 1].length;
+		}
+		if (Arrays.deepEquals(lines, area.lines)) return;
+
+		CheeseBuilder builder = new CheeseBuilder(pointCount);
+		for (long[] line : lines) {
+			for (long corner : line) {
+				builder.addPoint((double) CellKey.x(corner) * cellSize.getX(), (double) CellKey.y(corner) * cellSize.getY());
+			}
+			builder.endLine();
+		}
+		if (area.cheese != null) replaced(area.cheese);
+		area.cheese = builder.build();
+		area.lines = lines;
+		added.add(area.cheese);
+	}
+
+	/**
+	 * Remembers the cell for its sides, and marks the lines through its corners as dirty,
+	 * as the border may have to be followed differently there now
+	 */
+	private void edited(int x, int y) {
+		editedCells.add(CellKey.pack(x, y));
+		for (int dx = 0; dx <= 1; dx++) {
+			for (int dy = 0; dy <= 1; dy++) {
+				markLinesAt(x + dx, y + dy);
+			}
+		}
+	}
+
+	private void markLinesAt(int x, int y) {
+		for (int direction = 0; direction < 4; direction++) {
+			Line line = edges(direction).get(edgeKey(x, y, direction));
+			if (line != null) markDirty(line);
+		}
+	}
+
+	/**
+	 * @return Whether the vertex is between two cells of the same area that only touch at their corners
+	 */
+	private boolean isSaddle(int x, int y) {
+		Area topRight = cellAreas.get(CellKey.pack(x, y));
+		Area topLeft = cellAreas.get(CellKey.pack(x - 1, y));
+		Area bottomLeft = cellAreas.get(CellKey.pack(x - 1, y - 1));
+		Area bottomRight = cellAreas.get(CellKey.pack(x, y - 1));
+		if (topRight != null && topRight == bottomLeft) return topLeft != topRight && bottomRight != topRight;
+		return topLeft != null && topLeft == bottomRight && topRight != topLeft && bottomLeft != topLeft;
+	}
+
+	private void markDirty(Line line) {
+		if (line.dirty) return;
+		line.dirty = true;
+		dirtyLines.add(line);
+	}
+
+	/**
+	 * Moves all cells and lines of the smaller area into the bigger one
+	 *
+	 * @return The area that remains
+	 */
+	private Area merge(Area a, Area b) {
+		Area big = a.cells.size() >= b.cells.size() ? a : b;
+		Area small = big == a ? b : a;
+		for (long cell : small.cells.toArray()) {
+			big.cells.add(cell);
+			cellAreas.put(cell, big);
+		}
+
+		// the cell between them touches the outline of at least one of them, so only one outline can be kept
+		if (small.outline != null) {
+			small.outline.area = big;
+			if (big.outline == null || big.outline.dirty) big.outline = small.outline;
+			else markDirty(small.outline);
+			small.outline = null;
+		}
+		for (Line hole : small.holes) {
+			hole.area = big;
+		}
+		big.holes.addAll(small.holes);
+		small.holes.clear();
+
+		discard(small);
+		dirtyAreas.add(big);
+		return big;
+	}
+
+	/**
+	 * Finds the parts of the area that the neighbours of a removed cell belong to,
+	 * and moves all but the biggest part into new areas
+	 */
+	private void split(Area area, long[] neighbours, int neighbourCount) {
+		List<LongHashSet> parts = new ArrayList<>();
+		LongArrayList queue = new LongArrayList();
+		for (int n = 0; n < neighbourCount; n++) {
+			long start = neighbours[n];
+			boolean found = false;
+			for (LongHashSet part : parts) {
+				if (part.contains(start)) {
+					found = true;
+					break;
+				}
+			}
+			if (found) continue;
+
+			LongHashSet part = new LongHashSet();
+			part.add(start);
+			queue.clear();
+			queue.add(start);
+
+			// breadth-first, so the other neighbours are usually found after only a few steps
+			for (int head = 0; head < queue.size(); head++) {
+				long current = queue.get(head);
+				int x = CellKey.x(current), y = CellKey.y(current);
+				for (int i = 0; i < 4; i++) {
+					long neighbour = CellKey.pack(x + NEIGHBOUR_X[i], y + NEIGHBOUR_Y[i]);
+					if (area.cells.contains(neighbour) && part.add(neighbour)) queue.add(neighbour);
+				}
+
+				// if this part has reached all remaining neighbours, everything is still connected
+				if (parts.isEmpty() && containsAll(part, neighbours, neighbourCount)) return;
+			}
+			parts.add(part);
+		}
+
+		// the area keeps its biggest part, all others become new areas
+		LongHashSet biggest = parts.getFirst();
+		for (LongHashSet part : parts) {
+			if (part.size() > biggest.size()) biggest = part;
+		}
+		Set<Area> newAreas = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (LongHashSet part : parts) {
+			if (part == biggest) continue;
+			Area newArea = new Area();
+			for (long cell : part.toArray()) {
+				area.cells.remove(cell);
+				newArea.cells.add(cell);
+				cellAreas.put(cell, newArea);
+			}
+			areas.add(newArea);
+			dirtyAreas.add(newArea);
+			newAreas.add(newArea);
+		}
+
+		// the lines go with the part that they are around
+		List<Line> lines = new ArrayList<>(area.holes);
+		if (area.outline != null) lines.add(area.outline);
+		for (Line line : lines) {
+			Area owner = cellAreas.get(line.insideCell);
+			if (owner == null || owner == area) continue;
+			if (area.outline == line) {
+				area.outline = null;
+				owner.outline = line;
+			} else {
+				area.holes.remove(line);
+				owner.holes.add(line);
+			}
+			line.area = owner;
+		}
+
+		// where two parts touch at a corner, the same line may have gone around both of them
+		for (LongHashSet part : parts) {
+			if (part == biggest) continue;
+			for (long cell : part.toArray()) {
+				int x = CellKey.x(cell), y = CellKey.y(cell);
+				Area own = cellAreas.get(cell);
+				for (int dx = -1; dx <= 1; dx += 2) {
+					for (int dy = -1; dy <= 1; dy += 2) {
+						Area diagonal = cellAreas.get(CellKey.pack(x + dx, y + dy));
+						if (diagonal != own && (diagonal == area || newAreas.contains(diagonal))) {
+							markLinesAt(x + Math.max(dx, 0), y + Math.max(dy, 0));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Takes the area off the platter. Any lines that are still around it are traced again, so they are removed as well
+	 */
+	private void discard(Area area) {
+		if (area.outline != null) markDirty(area.outline);
+		for (Line hole : area.holes) {
+			markDirty(hole);
+		}
+		areas.remove(area);
+		dirtyAreas.remove(area);
+		if (area.cheese != null) replaced(area.cheese);
+		area.cheese = null;
+	}
+
+	private void replaced(Cheese cheese) {
+		// a cheese that was added and removed again since the last update was never seen by the caller
+		if (!added.remove(cheese)) removed.add(cheese);
+	}
+
+	private static boolean containsAll(LongHashSet set, long[] keys, int count) {
+		for (int i = 0; i < count; i++) {
+			if (!set.contains(keys[i])) return false;
+		}
+		return true;
+	}
+
+	private interface EdgeConsumer {
+		void accept(int x, int y, int direction);
+	}
+
+	/**
+	 * Calls the consumer for every border edge of the line, from the vertex it starts at, in the direction it goes in
+	 */
+	private static void forEachEdge(long[] lineCorners, EdgeConsumer consumer) {
+		long previous = lineCorners[lineCorners.length - 1];
+		int x = CellKey.x(previous), y = CellKey.y(previous);
+		for (long corner : lineCorners) {
+			int toX = CellKey.x(corner), toY = CellKey.y(corner);
+			int direction = toX > x ? BorderTracer.RIGHT : toX < x ? BorderTracer.LEFT : toY > y ? BorderTracer.UP : BorderTracer.DOWN;
+			while (x != toX || y != toY) {
+				consumer.accept(x, y, direction);
+				x += BorderTracer.DX[direction];
+				y += BorderTracer.DY[direction];
+			}
+		}
+	}
+
+	/**
+	 * @return Whether the line goes around counterclockwise, like an outline does, from the shoelace formula
+	 */
+	private static boolean isCounterclockwise(long[] lineCorners) {
+		long area2 = 0;
+		long previous = lineCorners[lineCorners.length - 1];
+		for (long corner : lineCorners) {
+			area2 += (long) CellKey.x(previous) * CellKey.y(corner) - (long) CellKey.x(corner) * CellKey.y(previous);
+			previous = corner;
+		}
+		return area2 > 0;
+	}
+
+	private LongObjectMap<Line> edges(int direction) {
+		return isVertical(direction) ? verticalEdges : horizontalEdges;
+	}
+
+	private static boolean isVertical(int direction) {
+		return direction == BorderTracer.UP || direction == BorderTracer.DOWN;
+	}
+
+	/**
+	 * @return The key of the edge that leaves the vertex in the direction, in its map
+	 */
+	private static long edgeKey(int x, int y, int direction) {
+		return switch (direction) {
+			case BorderTracer.LEFT -> CellKey.pack(x - 1, y);
+			case BorderTracer.DOWN -> CellKey.pack(x, y - 1);
+			default -> CellKey.pack(x, y);
+		};
+	}
+
+	private static class Area {
+		private final LongHashSet cells = new LongHashSet();
+		private Line outline;
+		private final Set<Line> holes = new LinkedHashSet<>();
+		/** The corners of the lines that the cheese was made from */
+		private long[][] lines;
+		private Cheese cheese;
+	}
+
+	/**
+	 * A closed border line of an area, with its corners in the same order as in the cheese
+	 */
+	private static class Line {
+		private final long[] corners;
+		private final boolean outline;
+		/** A cell on the inside of the line, to find the part of a split area that the line goes with */
+		private final long insideCell;
+		private Area area;
+		private boolean dirty = false;
+
+		private Line(long[] corners, boolean outline, Area area) {
+			this.corners = corners;
+			this.outline = outline;
+			this.area = area;
+			// the line leaves its lowest corner either to the right or upwards, with the inside on its left
+			long lowest = lowestCorner();
+			int x = CellKey.x(lowest), y = CellKey.y(lowest);
+			this.insideCell = CellKey.x(corners[0]) > x ? CellKey.pack(x, y) : CellKey.pack(x - 1, y);
+		}
+
+		private long lowestCorner() {
+			return corners[corners.length - 1];
+		}
+	}
+
+	/**
+	 * The cheeses that changed on a {@link CheesePlatter} since the previous {@link CheesePlatter#update()}.<br>
+	 * A cheese whose area was edited shows up as removed, and its replacement as added.
+	 */
+	public static class Changes {
+		private final Collection<Cheese> added;
+		private final Collection<Cheese> removed;
+
+		private Changes(Collection<Cheese> added, Collection<Cheese> removed) {
+			this.added = added;
+			this.removed = removed;
+		}
+
+		/**
+		 * @return The cheeses that are new on the platter.
+		 */
+		public Collection<Cheese> getAdded() {
+			return added;
+		}
+
+		/**
+		 * @return The cheeses that are no longer on the platter.
+		 */
+		public Collection<Cheese> getRemoved() {
+			return removed;
+		}
+
+		/**
+		 * @return Whether nothing changed.
+		 */
+		public boolean isEmpty() {
+			return added.isEmpty() && removed.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,440 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simplifies the outline and holes of a {@link Cheese} with the Douglas-Peucker algorithm,
+ * while making sure that the lines never touch or cross each other, and that no line ends up on the other side of another one.<br>
+ * <br>
+ * Every removed stretch of a line is replaced by a shortcut. If a shortcut would cross another line,
+ * or cut off a part of the cheese that contains a point of another line, the point furthest from the shortcut is put back.
+ * This repeats until all shortcuts are fine, which at worst gives back the original lines.<br>
+ * <br>
+ * The kept segments of all lines are put in a uniform grid, so every shortcut is only compared with the segments near it.
+ */
+final class CheeseSimplifier {
+	private final List<Ring> rings = new ArrayList<>();
+	private final double tolerance;
+	/** Counts the conflict checks, to only compare every segment once per check */
+	private int checks = 0;
+
+	private CheeseSimplifier(Cheese cheese, double tolerance) {
+		this.tolerance = tolerance;
+		for (int line = 0; line < cheese.getLineCount(); line++) {
+			rings.add(new Ring(cheese, line));
+		}
+	}
+
+	static Cheese simplify(Cheese cheese, double tolerance) {
+		CheeseSimplifier simplifier = new CheeseSimplifier(cheese, tolerance);
+		for (Ring ring : simplifier.rings) {
+			ring.simplify(tolerance);
+		}
+		simplifier.fixTopology();
+
+		CheeseBuilder builder = new CheeseBuilder();
+		for (Ring ring : simplifier.rings) {
+			ring.addTo(builder);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Puts points back until no shortcut conflicts with any other line anymore
+	 */
+	private void fixTopology() {
+		SegmentGrid grid = new SegmentGrid(rings);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int r = 0; r < rings.size(); r++) {
+				Ring ring = rings.get(r);
+				List<int[]> conflicts = new ArrayList<>();
+				for (int from = ring.nextKept(-1), i = 0; i < ring.keptCount; i++) {
+					int to = ring.nextKept(from);
+					if (ring.isShortcut(from, to) && hasConflict(grid, ring, from, to)) conflicts.add(new int[]{from, to});
+					from = to;
+				}
+				for (int[] conflict : conflicts) {
+					// the two new halves have to be within the tolerance again
+					int furthest = ring.furthest(conflict[0], conflict[1]);
+					ring.keep(furthest);
+					ring.simplify(conflict[0], furthest, tolerance);
+					ring.simplify(furthest, conflict[1], tolerance);
+					for (int i = conflict[0]; i != conflict[1]; i = ring.nextKept(i)) {
+						grid.add(r, ring, i);
+					}
+					changed = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the shortcut between two kept points of a ring touches any other line,
+	 * or whether the area between the shortcut and the stretch it replaces contains any kept point
+	 */
+	private boolean hasConflict(SegmentGrid grid, Ring ring, int from, int to) {
+		double ax = ring.xs[from], ay = ring.ys[from];
+		double bx = ring.xs[to], by = ring.ys[to];
+
+		// bounding box of the replaced stretch, which includes the shortcut
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = from; ; i = ring.wrap(i + 1)) {
+			minX = Math.min(minX, ring.xs[i]);
+			minY = Math.min(minY, ring.ys[i]);
+			maxX = Math.max(maxX, ring.xs[i]);
+			maxY = Math.max(maxY, ring.ys[i]);
+			if (i == to) break;
+		}
+
+		int check = ++checks;
+		for (int column = grid.column(minX); column <= grid.column(maxX); column++) {
+			for (int row = grid.row(minY); row <= grid.row(maxY); row++) {
+				int cell = grid.cell(column, row);
+				for (int k = 0; k < grid.sizes[cell]; k++) {
+					long segment = grid.segments[cell][k];
+					Ring other = rings.get((int) (segment >>> 32));
+					int start = (int) segment;
+					// segments that cross several cells, or that were split later, are in the grid more than once
+					if (other.checked[start] == check) continue;
+					other.checked[start] = check;
+					if (other == ring && start == from) continue; // the shortcut itself
+
+					int end = other.nextKept(start);
+					double px = other.xs[start], py = other.ys[start];
+					double qx = other.xs[end], qy = other.ys[end];
+					if (Math.max(px, qx) < minX || Math.min(px, qx) > maxX || Math.max(py, qy) < minY || Math.min(py, qy) > maxY) {
+						continue; // too far away to matter
+					}
+
+					if (segmentsConflict(ax, ay, bx, by, px, py, qx, qy)) return true;
+
+					// a kept point inside the cut-off area means a line would end up on the other side of the shortcut
+					boolean isEndpoint = (px == ax && py == ay) || (px == bx && py == by);
+					if (!isEndpoint && px >= minX && px <= maxX && py >= minY && py <= maxY && !isOutsideStretch(ring, from, to, px, py)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Whether the point is strictly outside the polygon formed by the stretch of the ring and its shortcut
+	 */
+	private static boolean isOutsideStretch(Ring ring, int from, int to, double px, double py) {
+		boolean inside = false;
+		int previous = to; // the shortcut closes the polygon
+		for (int i = from; ; i = ring.wrap(i + 1)) {
+			double x1 = ring.xs[previous], y1 = ring.ys[previous];
+			double x2 = ring.xs[i], y2 = ring.ys[i];
+
+			// points on the border count as inside
+			if (orientation(x1, y1, x2, y2, px, py) == 0 && isWithin(x1, y1, x2, y2, px, py)) return false;
+			if ((y1 > py) != (y2 > py) && px < (x2 - x1) * (py - y1) / (y2 - y1) + x1) inside = !inside;
+
+			if (i == to) break;
+			previous = i;
+		}
+		return !inside;
+	}
+
+	/**
+	 * Two segments conflict if they have any point in common, except for a shared end point
+	 */
+	private static boolean segmentsConflict(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+		boolean sharedA = (ax == cx && ay == cy) || (ax == dx && ay == dy);
+		boolean sharedB = (bx == cx && by == cy) || (bx == dx && by == dy);
+		if (sharedA && sharedB) return true; // the same segment, in another line or another place
+
+		double o1 = orientation(ax, ay, bx, by, cx, cy);
+		double o2 = orientation(ax, ay, bx, by, dx, dy);
+		double o3 = orientation(cx, cy, dx, dy, ax, ay);
+		double o4 = orientation(cx, cy, dx, dy, bx, by);
+
+		// proper crossing
+		if (o1 * o2 < 0 && o3 * o4 < 0) return true;
+
+		// touching or overlapping, anywhere other than at a shared end point
+		if (o1 == 0 && isStrictlyWithin(ax, ay, bx, by, cx, cy)) return true;
+		if (o2 == 0 && isStrictlyWithin(ax, ay, bx, by, dx, dy)) return true;
+		if (o3 == 0 && isStrictlyWithin(cx, cy, dx, dy, ax, ay)) return true;
+		if (o4 == 0 && isStrictlyWithin(cx, cy, dx, dy, bx, by)) return true;
+		return false;
+	}
+
+	private static double orientation(double ax, double ay, double bx, double by, double px, double py) {
+		return Math.signum((bx - ax) * (py - ay) - (by - ay) * (px - ax));
+	}
+
+	/**
+	 * @return Whether a point that is on the line through a and b lies between them, including the end points
+	 */
+	private static boolean isWithin(double ax, double ay, double bx, double by, double px, double py) {
+		return px >= Math.min(ax, bx) && px <= Math.max(ax, bx) && py >= Math.min(ay, by) && py <= Math.max(ay, by);
+	}
+
+	/**
+	 * @return Whether a point that is on the line through a and b lies between them, excluding the end points
+	 */
+	private static boolean isStrictlyWithin(double ax, double ay, double bx, double by, double px, double py) {
+		if ((px == ax && py == ay) || (px == bx && py == by)) return false;
+		return isWithin(ax, ay, bx, by, px, py);
+	}
+
+	private static double distanceToSegment(double ax, double ay, double bx, double by, double px, double py) {
+		double dx = bx - ax, dy = by - ay;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : Math.clamp(((px - ax) * dx + (py - ay) * dy) / lengthSquared, 0, 1);
+		double ex = ax + t * dx - px, ey = ay + t * dy - py;
+		return Math.sqrt(ex * ex + ey * ey);
+	}
+
+	/**
+	 * A closed line, with a flag for every point that says whether it is kept
+	 */
+	private static class Ring {
+		private final double[] xs, ys;
+		private final boolean[] kept;
+		/** The next kept point after every kept point */
+		private final int[] next;
+		/** The last conflict check that compared the segment starting at every kept point */
+		private final int[] checked;
+		private int keptCount = 0;
+
+		private Ring(Cheese cheese, int line) {
+			int n = cheese.getPointCount(line);
+			xs = new double[n];
+			ys = new double[n];
+			kept = new boolean[n];
+			next = new int[n];
+			checked = new int[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = cheese.getX(line, i);
+				ys[i] = cheese.getY(line, i);
+			}
+		}
+
+		/**
+		 * Douglas-Peucker on a closed line: split it at the first point and the point furthest from it,
+		 * then simplify both halves
+		 */
+		private void simplify(double tolerance) {
+			int n = xs.length;
+			if (n <= 3) {
+				for (int i = 0; i < n; i++) keep(i);
+				return;
+			}
+
+			int far = 0;
+			double farDistance = -1;
+			for (int i = 1; i < n; i++) {
+				double distance = Math.hypot(xs[i] - xs[0], ys[i] - ys[0]);
+				if (distance > farDistance) {
+					far = i;
+					farDistance = distance;
+				}
+			}
+			keep(0);
+			keep(far);
+			simplify(0, far, tolerance);
+			simplify(far, 0, tolerance);
+
+			// a line needs at least three points to still be a shape
+			if (keptCount < 3) keep(furthestFromLine(0, far));
+		}
+
+		/**
+		 * Douglas-Peucker on the stretch between two kept points.
+		 * The end index may wrap around past the end of the line.
+		 */
+		private void simplify(int from, int to, double tolerance) {
+			List<int[]> stack = new ArrayList<>();
+			stack.add(new int[]{from, to <= from ? to + xs.length : to});
+			while (!stack.isEmpty()) {
+				int[] range = stack.removeLast();
+				if (range[1] - range[0] < 2) continue;
+				int furthest = furthest(range[0], range[1]);
+				if (distanceToChord(range[0], range[1], furthest) > tolerance) {
+					keep(furthest);
+					int unwrapped = furthest < range[0] ? furthest + xs.length : furthest;
+					stack.add(new int[]{range[0], unwrapped});
+					stack.add(new int[]{unwrapped, range[1]});
+				}
+			}
+		}
+
+		/**
+		 * @return The point between the two indices (exclusive) that is the furthest from the chord between them.
+		 * The end index may wrap around past the end of the line.
+		 */
+		private int furthest(int from, int to) {
+			if (to <= from) to += xs.length;
+			int furthest = from;
+			double furthestDistance = -1;
+			for (int i = from + 1; i < to; i++) {
+				double distance = distanceToChord(from, to, wrap(i));
+				if (distance > furthestDistance) {
+					furthest = wrap(i);
+					furthestDistance = distance;
+				}
+			}
+			return furthest;
+		}
+
+		/**
+		 * @return The point on either side of the line that is the furthest from the chord between the two indices
+		 */
+		private int furthestFromLine(int a, int b) {
+			int first = furthest(a, b);
+			int second = furthest(b, a);
+			return distanceToChord(a, b, first) >= distanceToChord(b, a, second) ? first : second;
+		}
+
+		private double distanceToChord(int from, int to, int index) {
+			int a = wrap(from), b = wrap(to);
+			return distanceToSegment(xs[a], ys[a], xs[b], ys[b], xs[index], ys[index]);
+		}
+
+		private void keep(int index) {
+			if (kept[index]) return;
+			if (keptCount == 0) {
+				next[index] = index;
+			} else {
+				int previous = wrap(index - 1);
+				while (!kept[previous]) previous = wrap(previous - 1);
+				next[index] = next[previous];
+				next[previous] = index;
+			}
+			kept[index] = true;
+			keptCount++;
+		}
+
+		private int wrap(int index) {
+			return Math.floorMod(index, xs.length);
+		}
+
+		private int nextKept(int index) {
+			if (index >= 0 && kept[index]) return next[index];
+			for (int i = wrap(index + 1); ; i = wrap(i + 1)) {
+				if (kept[i]) return i;
+			}
+		}
+
+		/**
+		 * @return Whether any points between the two kept points were removed
+		 */
+		private boolean isShortcut(int from, int to) {
+			return wrap(from + 1) != to;
+		}
+
+		private void addTo(CheeseBuilder builder) {
+			for (int i = 0; i < xs.length; i++) {
+				if (kept[i]) builder.addPoint(xs[i], ys[i]);
+			}
+			builder.endLine();
+		}
+	}
+
+	/**
+	 * A uniform grid over all lines, with the kept segments that go through every cell.
+	 * A segment is stored as the index of its ring in the upper half, and the index of its first point in the lower half.<br>
+	 * Segments are never removed: when a segment is split, the halves are added, and the old entries then just point to the first half.
+	 */
+	private static class SegmentGrid {
+		private final double minX, minY, cellSize;
+		private final int columns, rows;
+		private final long[][] segments;
+		private final int[] sizes;
+
+		private SegmentGrid(List<Ring> rings) {
+			double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			int count = 1;
+			for (Ring ring : rings) {
+				for (int i = 0; i < ring.xs.length; i++) {
+					minX = Math.min(minX, ring.xs[i]);
+					minY = Math.min(minY, ring.ys[i]);
+					maxX = Math.max(maxX, ring.xs[i]);
+					maxY = Math.max(maxY, ring.ys[i]);
+				}
+				count += ring.keptCount;
+			}
+			double width = maxX - minX, height = maxY - minY;
+
+			// about one segment per cell, but never more cells in a row or column than there are segments
+			double cellSize = Math.max(Math.sqrt(width * height / count), Math.max(width, height) / count);
+			this.minX = minX;
+			this.minY = minY;
+			this.cellSize = cellSize > 0 ? cellSize : 1;
+			this.columns = (int) (width / this.cellSize) + 1;
+			this.rows = (int) (height / this.cellSize) + 1;
+			this.segments = new long[columns * rows][];
+			this.sizes = new int[columns * rows];
+
+			for (int r = 0; r < rings.size(); r++) {
+				Ring ring = rings.get(r);
+				for (int start = ring.nextKept(-1), i = 0; i < ring.keptCount; i++) {
+					add(r, ring, start);
+					start = ring.nextKept(start);
+				}
+			}
+		}
+
+		private int column(double x) {
+			return Math.clamp((long) Math.floor((x - minX) / cellSize), 0, columns - 1);
+		}
+
+		private int row(double y) {
+			return Math.clamp((long) Math.floor((y - minY) / cellSize), 0, rows - 1);
+		}
+
+		private int cell(int column, int row) {
+			return column * rows + row;
+		}
+
+		/**
+		 * Adds the segment from the kept point to the next kept point to every cell it goes through.
+		 * The cells are widened by a tiny margin, so rounding can never leave out a cell that the segment touches.
+		 */
+		private void add(int ringIndex, Ring ring, int start) {
+			int end = ring.nextKept(start);
+			double px = ring.xs[start], py = ring.ys[start];
+			double qx = ring.xs[end], qy = ring.ys[end];
+			double margin = cellSize * 1e-6;
+			long segment = (long) ringIndex << 32 | start;
+
+			double left = Math.min(px, qx), right = Math.max(px, qx);
+			for (int column = column(left - margin); column <= column(right + margin); column++) {
+				// the part of the segment within the column
+				double from = Math.max(left, minX + column * cellSize - margin);
+				double to = Math.min(right, minX + (column + 1) * cellSize + margin);
+				double y1 = px == qx ? py : py + (from - px) * (qy - py) / (qx - px);
+				double y2 = px == qx ? qy : py + (to - px) * (qy - py) / (qx - px);
+				for (int row = row(Math.min(y1, y2) - margin); row <= row(Math.max(y1, y2) + margin); row++) {
+					int cell = cell(column, row);
+					if (segments[cell] == null) segments[cell] = new long[4];
+					else if (sizes[cell] == segments[cell].length) segments[cell] = Arrays.copyOf(segments[cell], sizes[cell] * 2);
+					segments[cell][sizes[cell]++] = segment;
+				}
+			}
+		}
+	}
+}
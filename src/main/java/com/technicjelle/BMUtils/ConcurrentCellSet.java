@@ -0,0 +1,187 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link CellSet} that many threads can add cells to and remove cells from at the same time,
+ * like from the callbacks of chunks that are loaded asynchronously.<br>
+ * <br>
+ * The tiles of the set are spread over {@value #STRIPES} stripes, which each have their own lock,
+ * so threads only wait for each other when they change cells in the same stripe at the same time.<br>
+ * {@link #snapshot()} takes all locks at once, and copies the tiles, which costs a copy of 64 words per 4096 cells.
+ * The snapshot can then be traced without blocking the threads that keep adding cells.
+ */
+public class ConcurrentCellSet {
+	private static final int STRIPES = 64;
+
+	private final CellSet[] stripes = new CellSet[STRIPES];
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+	/**
+	 * Creates a new, empty set.
+	 */
+	public ConcurrentCellSet() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new CellSet();
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Adds a cell to the set.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell was not in the set yet.
+	 */
+	public boolean add(int x, int y) {
+		int stripe = stripe(x, y);
+		locks[stripe].lock();
+		try {
+			return stripes[stripe].add(x, y);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	/**
+	 * Adds a cell to the set.
+	 *
+	 * @param cell The cell.
+	 * @return Whether the cell was not in the set yet.
+	 */
+	public boolean add(Vector2i cell) {
+		return add(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Removes a cell from the set.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell was in the set.
+	 */
+	public boolean remove(int x, int y) {
+		int stripe = stripe(x, y);
+		locks[stripe].lock();
+		try {
+			return stripes[stripe].remove(x, y);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	/**
+	 * Removes a cell from the set.
+	 *
+	 * @param cell The cell.
+	 * @return Whether the cell was in the set.
+	 */
+	public boolean remove(Vector2i cell) {
+		return remove(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return Whether the cell is in the set.
+	 */
+	public boolean contains(int x, int y) {
+		int stripe = stripe(x, y);
+		locks[stripe].lock();
+		try {
+			return stripes[stripe].contains(x, y);
+		} finally {
+			locks[stripe].unlock();
+		}
+	}
+
+	/**
+	 * @param cell The cell.
+	 * @return Whether the cell is in the set.
+	 */
+	public boolean contains(Vector2i cell) {
+		return contains(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Removes all cells from the set.
+	 */
+	public void clear() {
+		lockAll();
+		try {
+			for (int i = 0; i < STRIPES; i++) stripes[i] = new CellSet();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Copies the cells in the set, as they are at a single moment.
+	 * Changes to this set that happen at the same time either all end up in the snapshot, or not at all.
+	 *
+	 * @return A new {@link CellSet} with the cells that are in this set.
+	 */
+	public CellSet snapshot() {
+		CellSet snapshot = new CellSet();
+		lockAll();
+		try {
+			for (CellSet stripe : stripes) stripe.copyTilesTo(snapshot);
+		} finally {
+			unlockAll();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Creates a platter from a {@link #snapshot()} of the chunks in this set.
+	 *
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromChunks(Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromChunks() {
+		return snapshot().createPlatterFromChunks();
+	}
+
+	/**
+	 * Creates a platter from a {@link #snapshot()} of the cells in this set.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromCells(Vector2d, Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromCells(Vector2d cellSize) {
+		return snapshot().createPlatterFromCells(cellSize);
+	}
+
+	/**
+	 * The locks are always taken in the same order, so two snapshots can never wait for each other
+	 */
+	private void lockAll() {
+		for (ReentrantLock lock : locks) lock.lock();
+	}
+
+	private void unlockAll() {
+		for (int i = STRIPES - 1; i >= 0; i--) locks[i].unlock();
+	}
+
+	private static int stripe(int x, int y) {
+		return LongHashSet.mix(CellSet.tileKey(x, y)) & (STRIPES - 1);
+	}
+}
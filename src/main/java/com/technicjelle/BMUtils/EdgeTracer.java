@@ -0,0 +1,80 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * Traces the borders of a set of cells by putting their border edges into a map from vertex to a mask of edge directions.<br>
+ * A side of a cell is only a border edge if the neighbouring cell on that side is not in the set,
+ * so the edges between cells are never created, and the map only grows with the perimeter of the cells, not their area.
+ */
+final class EdgeTracer extends BorderTracer {
+	/** The unvisited border edges, as a mask of directions per packed vertex */
+	private final LongByteMap borders;
+	/** The vertices with border edges, sorted first by x, then by y */
+	private final long[] vertices;
+
+	/**
+	 * @param cellKeys The packed cells. May contain duplicates. This array is not modified.
+	 * @param count    How many cells at the start of the array to use.
+	 */
+	EdgeTracer(long[] cellKeys, int count) {
+		super(0, 0);
+
+		LongHashSet cells = new LongHashSet(count);
+		for (int i = 0; i < count; i++) {
+			cells.add(cellKeys[i]);
+		}
+
+		// a square has the smallest perimeter for its area, and the map grows if the cells are more spread out
+		borders = new LongByteMap(4 * (int) Math.sqrt(cells.size()) + 4);
+		for (int i = 0; i < count; i++) {
+			long cell = cellKeys[i];
+			int x = CellKey.x(cell), y = CellKey.y(cell);
+			// the exposed sides of the cell, in clockwise direction
+			// adding a side twice for a duplicate cell doesn't matter, as it's just a bit in the mask
+			if (!cells.contains(CellKey.pack(x, y - 1))) addEdge(x, y, RIGHT);
+			if (!cells.contains(CellKey.pack(x + 1, y))) addEdge(x + 1, y, UP);
+			if (!cells.contains(CellKey.pack(x, y + 1))) addEdge(x + 1, y + 1, LEFT);
+			if (!cells.contains(CellKey.pack(x - 1, y))) addEdge(x, y + 1, DOWN);
+		}
+
+		vertices = borders.nonZeroKeys();
+		CellKey.sort(vertices, 0, vertices.length);
+	}
+
+	private void addEdge(int x, int y, int direction) {
+		long from = CellKey.pack(x, y);
+		borders.put(from, (byte) (borders.get(from) | (1 << direction)));
+	}
+
+	@Override
+	long scanCount() {
+		return vertices.length;
+	}
+
+	@Override
+	long scanVertex(long index) {
+		return vertices[(int) index];
+	}
+
+	@Override
+	int outgoing(int x, int y) {
+		return borders.get(CellKey.pack(x, y));
+	}
+
+	@Override
+	void visit(int x, int y, int direction) {
+		long vertex = CellKey.pack(x, y);
+		borders.put(vertex, (byte) (borders.get(vertex) & ~(1 << direction)));
+	}
+}
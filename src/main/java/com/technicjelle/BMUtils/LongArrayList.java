@@ -0,0 +1,63 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of primitive <code>long</code>s.<br>
+ * Also used as a stack, through {@link #add(long)} and {@link #removeLast()}.
+ */
+final class LongArrayList {
+	private long[] elements;
+	private int size;
+
+	LongArrayList() {
+		this(16);
+	}
+
+	LongArrayList(int initialCapacity) {
+		elements = new long[Math.max(1, initialCapacity)];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	long get(int index) {
+		if (index >= size) throw new IndexOutOfBoundsException(index);
+		return elements[index];
+	}
+
+	void add(long value) {
+		if (size == elements.length) elements = Arrays.copyOf(elements, size * 2);
+		elements[size++] = value;
+	}
+
+	long removeLast() {
+		if (size == 0) throw new IllegalStateException("List is empty");
+		return elements[--size];
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	long[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+}
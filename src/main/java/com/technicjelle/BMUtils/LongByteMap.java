@@ -0,0 +1,105 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * A map from primitive <code>long</code> keys to <code>byte</code> values, using open addressing with linear probing,
+ * in the same way as {@link LongHashSet}.<br>
+ * Missing keys read as <code>0</code>. Entries are never removed, so the map only grows.
+ */
+final class LongByteMap {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** Zero is used to mark free slots, so its value is stored separately */
+	private boolean containsZero;
+	private byte zeroValue;
+	private long[] keys;
+	private byte[] values;
+	private int mask;
+	private int size;
+
+	LongByteMap(int expectedSize) {
+		allocate(LongHashSet.tableSizeFor(expectedSize));
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The value for the key, or <code>0</code> if there is none
+	 */
+	byte get(long key) {
+		if (key == 0) return zeroValue;
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == 0) return 0;
+			if (k == key) return values[i];
+		}
+	}
+
+	void put(long key, byte value) {
+		if (key == 0) {
+			if (!containsZero) size++;
+			containsZero = true;
+			zeroValue = value;
+			return;
+		}
+		int i = slot(key);
+		for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+			if (k == key) {
+				values[i] = value;
+				return;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > (keys.length * LOAD_FACTOR)) rehash(keys.length * 2);
+	}
+
+	/**
+	 * @return All keys that have a value other than <code>0</code>, in no particular order
+	 */
+	long[] nonZeroKeys() {
+		LongArrayList result = new LongArrayList(size);
+		if (containsZero && zeroValue != 0) result.add(0);
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != 0 && values[i] != 0) result.add(keys[i]);
+		}
+		return result.toArray();
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		byte[] oldValues = values;
+		allocate(newCapacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			long k = oldKeys[j];
+			if (k == 0) continue;
+			int i = slot(k);
+			while (keys[i] != 0) i = (i + 1) & mask;
+			keys[i] = k;
+			values[i] = oldValues[j];
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new byte[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(long key) {
+		return LongHashSet.mix(key) & mask;
+	}
+}
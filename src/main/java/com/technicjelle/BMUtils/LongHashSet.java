@@ -0,0 +1,175 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * A set of primitive <code>long</code>s, using open addressing with linear probing.<br>
+ * Unlike a {@link java.util.HashSet}, it does not allocate a node or a boxed value for every element.
+ */
+final class LongHashSet {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** Zero is used to mark free slots, so it is tracked separately */
+	private boolean containsZero;
+	private long[] keys;
+	private int mask;
+	private int size;
+
+	LongHashSet() {
+		this(16);
+	}
+
+	LongHashSet(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean contains(long key) {
+		if (key == 0) return containsZero;
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == 0) return false;
+			if (k == key) return true;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the key was not in the set yet
+	 */
+	boolean add(long key) {
+		if (key == 0) {
+			if (containsZero) return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int i = slot(key);
+		for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+			if (k == key) return false;
+		}
+		keys[i] = key;
+		if (++size > (keys.length * LOAD_FACTOR)) rehash(keys.length * 2);
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if the key was in the set
+	 */
+	boolean remove(long key) {
+		if (key == 0) {
+			if (!containsZero) return false;
+			containsZero = false;
+			size--;
+			return true;
+		}
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == 0) return false;
+			if (k == key) {
+				shiftKeys(i);
+				size--;
+				return true;
+			}
+		}
+	}
+
+	void clear() {
+		java.util.Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+	/**
+	 * @return All keys in the set, in no particular order
+	 */
+	long[] toArray() {
+		long[] result = new long[size];
+		toArray(result);
+		return result;
+	}
+
+	/**
+	 * Copies all keys in the set to the start of the array, in no particular order
+	 *
+	 * @param into The array to copy the keys into. Must be at least as long as the size of the set.
+	 * @return The amount of keys that were copied
+	 */
+	int toArray(long[] into) {
+		int n = 0;
+		if (containsZero) into[n++] = 0;
+		for (long k : keys) {
+			if (k != 0) into[n++] = k;
+		}
+		return n;
+	}
+
+	/**
+	 * Backward-shift deletion: moves entries after the removed one up, so no tombstones are needed
+	 */
+	private void shiftKeys(int pos) {
+		while (true) {
+			int last = pos;
+			pos = (pos + 1) & mask;
+			long k;
+			while (true) {
+				if ((k = keys[pos]) == 0) {
+					keys[last] = 0;
+					return;
+				}
+				int s = slot(k);
+				// only move the entry if its home slot is not between the gap and its current position
+				if (last <= pos ? last >= s || s > pos : last >= s && s > pos) break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = k;
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		long[] old = keys;
+		allocate(newCapacity);
+		for (long k : old) {
+			if (k == 0) continue;
+			int i = slot(k);
+			while (keys[i] != 0) i = (i + 1) & mask;
+			keys[i] = k;
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(long key) {
+		return mix(key) & mask;
+	}
+
+	static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	static int tableSizeFor(int expectedSize) {
+		long needed = Math.max(4, (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1);
+		if (needed > (1 << 30)) throw new IllegalArgumentException("Too many elements: " + expectedSize);
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive <code>long</code> keys to objects, using open addressing with linear probing,
+ * in the same way as {@link LongHashSet}.
+ *
+ * @param <V> The type of the values. <code>null</code> values are not supported.
+ */
+final class LongObjectMap<V> {
+	private static final float LOAD_FACTOR = 0.5f;
+
+	/** Zero is used to mark free slots, so its value is stored separately */
+	private V zeroValue;
+	private long[] keys;
+	private V[] values;
+	private int mask;
+	private int size;
+
+	LongObjectMap() {
+		this(16);
+	}
+
+	LongObjectMap(int expectedSize) {
+		allocate(LongHashSet.tableSizeFor(expectedSize));
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @return The value for the key, or <code>null</code> if there is none
+	 */
+	V get(long key) {
+		if (key == 0) return zeroValue;
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == 0) return null;
+			if (k == key) return values[i];
+		}
+	}
+
+	/**
+	 * @return The previous value for the key, or <code>null</code> if there was none
+	 */
+	V put(long key, V value) {
+		if (value == null) throw new IllegalArgumentException("value can not be null");
+		if (key == 0) {
+			V previous = zeroValue;
+			if (previous == null) size++;
+			zeroValue = value;
+			return previous;
+		}
+		int i = slot(key);
+		for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+			if (k == key) {
+				V previous = values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		if (++size > (keys.length * LOAD_FACTOR)) rehash(keys.length * 2);
+		return null;
+	}
+
+	/**
+	 * @return The removed value, or <code>null</code> if there was none
+	 */
+	V remove(long key) {
+		if (key == 0) {
+			V previous = zeroValue;
+			if (previous != null) size--;
+			zeroValue = null;
+			return previous;
+		}
+		for (int i = slot(key); ; i = (i + 1) & mask) {
+			long k = keys[i];
+			if (k == 0) return null;
+			if (k == key) {
+				V previous = values[i];
+				shiftKeys(i);
+				size--;
+				return previous;
+			}
+		}
+	}
+
+	/**
+	 * @return All keys in the map, in no particular order
+	 */
+	long[] keysToArray() {
+		long[] result = new long[size];
+		int n = 0;
+		if (zeroValue != null) result[n++] = 0;
+		for (long k : keys) {
+			if (k != 0) result[n++] = k;
+		}
+		return result;
+	}
+
+	void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(values, null);
+		zeroValue = null;
+		size = 0;
+	}
+
+	/**
+	 * Backward-shift deletion: moves entries after the removed one up, so no tombstones are needed
+	 */
+	private void shiftKeys(int pos) {
+		while (true) {
+			int last = pos;
+			pos = (pos + 1) & mask;
+			long k;
+			while (true) {
+				if ((k = keys[pos]) == 0) {
+					keys[last] = 0;
+					values[last] = null;
+					return;
+				}
+				int s = slot(k);
+				// only move the entry if its home slot is not between the gap and its current position
+				if (last <= pos ? last >= s || s > pos : last >= s && s > pos) break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = k;
+			values[last] = values[pos];
+		}
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		V[] oldValues = values;
+		allocate(newCapacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			long k = oldKeys[j];
+			if (k == 0) continue;
+			int i = slot(k);
+			while (keys[i] != 0) i = (i + 1) & mask;
+			keys[i] = k;
+			values[i] = oldValues[j];
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = (V[]) new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(long key) {
+		return LongHashSet.mix(key) & mask;
+	}
+}
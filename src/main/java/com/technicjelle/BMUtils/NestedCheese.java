@@ -0,0 +1,85 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Cheese} in a platter, together with the cheeses that lie inside its holes.<br>
+ * For example, a claim that lies completely inside a hole of another claim is a child of that other claim.<br>
+ * Created by {@link Cheese#createNestedPlatterFromCells(Vector2d, Vector2i...)}.
+ */
+public class NestedCheese {
+	private final Cheese cheese;
+	private @Nullable NestedCheese parent = null;
+	private int parentHole = -1;
+	private final List<NestedCheese> children = new ArrayList<>(0);
+
+	NestedCheese(Cheese cheese) {
+		this.cheese = cheese;
+	}
+
+	void setParent(NestedCheese parent, int hole) {
+		this.parent = parent;
+		this.parentHole = hole;
+		parent.children.add(this);
+	}
+
+	/**
+	 * @return The cheese itself.
+	 */
+	public Cheese getCheese() {
+		return cheese;
+	}
+
+	/**
+	 * @return The cheese that this cheese lies in a hole of, or <code>null</code> if it doesn't lie in any other cheese.
+	 */
+	public @Nullable NestedCheese getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return The index of the hole of the parent that this cheese lies in, in the order of {@link Cheese#getHoles()},
+	 * or <code>-1</code> if it doesn't lie in any other cheese.
+	 */
+	public int getParentHole() {
+		return parentHole;
+	}
+
+	/**
+	 * @return The cheeses that lie directly inside the holes of this cheese, in platter order.
+	 * Cheeses that lie inside the holes of those cheeses are not included.
+	 */
+	public List<NestedCheese> getChildren() {
+		return Collections.unmodifiableList(children);
+	}
+
+	/**
+	 * @param hole The index of the hole, in the order of {@link Cheese#getHoles()}.
+	 * @return The cheeses that lie directly inside that hole, in platter order.
+	 */
+	public List<NestedCheese> getChildren(int hole) {
+		List<NestedCheese> inHole = new ArrayList<>();
+		for (NestedCheese child : children) {
+			if (child.parentHole == hole) inHole.add(child);
+		}
+		return inHole;
+	}
+}
@@ -0,0 +1,283 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Collects cells outside the Java heap, for platters that are too large to comfortably keep every cell on the heap,
+ * like the explored area of a whole world.<br>
+ * The cells, and the memory needed to sort them, live in {@link MemorySegment}s from confined {@link Arena}s.<br>
+ * Creating the platter still uses some memory on the heap:
+ * the runs of consecutive cells in a column and the areas they belong to, which take about six <code>int</code>s per run,
+ * the bitmap of the bounding box of an area that is being traced, if that area is dense enough,
+ * or otherwise the corners of its border that have been visited, and of course the resulting {@link Cheese}s.
+ * The cells themselves are never copied to the heap, as the areas are traced straight from their runs.<br>
+ * <br>
+ * With {@link #mapped(Path)}, the cells are stored in a memory-mapped file instead,
+ * so the operating system can page them out to disk, instead of running out of memory.<br>
+ * <br>
+ * This class is not thread-safe, and can only be used on the thread that created it.
+ * Call {@link #close()} to free the memory when done.
+ */
+public class OffHeapPlatterBuilder implements AutoCloseable {
+	private static final long INITIAL_CAPACITY = 1 << 16;
+
+	private final @Nullable FileChannel file;
+	/** The arena of the current cell segment, which is replaced whenever the segment grows */
+	private Arena arena;
+	private MemorySegment cells;
+	private long capacity;
+	private long size = 0;
+	private boolean sorted = true;
+
+	/**
+	 * Creates a new, empty builder that keeps its cells in off-heap memory.
+	 */
+	public OffHeapPlatterBuilder() {
+		this.file = null;
+		this.arena = Arena.ofConfined();
+		this.capacity = INITIAL_CAPACITY;
+		this.cells = arena.allocate(capacity * Long.BYTES, Long.BYTES);
+	}
+
+	private OffHeapPlatterBuilder(FileChannel file) throws IOException {
+		this.file = file;
+		this.arena = Arena.ofConfined();
+		this.capacity = INITIAL_CAPACITY;
+		this.cells = file.map(FileChannel.MapMode.READ_WRITE, 0, capacity * Long.BYTES, arena);
+	}
+
+	/**
+	 * Creates a new, empty builder that keeps its cells in a memory-mapped file.<br>
+	 * The file is created if it doesn't exist yet, and overwritten if it does. It is not deleted when the builder is closed.
+	 *
+	 * @param file The file to store the cells in.
+	 * @return The new builder.
+	 * @throws IOException If the file could not be opened or mapped.
+	 */
+	public static OffHeapPlatterBuilder mapped(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new OffHeapPlatterBuilder(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds a single cell. Adding the same cell more than once is allowed.
+	 *
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 */
+	public void addCell(int x, int y) {
+		addCellKey(CellKey.pack(x, y));
+	}
+
+	/**
+	 * Adds a single cell. Adding the same cell more than once is allowed.
+	 *
+	 * @param cell The cell to add.
+	 */
+	public void addCell(Vector2i cell) {
+		addCellKey(CellKey.pack(cell));
+	}
+
+	/**
+	 * Adds many cells at once.
+	 *
+	 * @param cellKeys The cells to add, packed with {@link CellKey}. This array is not modified.
+	 */
+	public void addCells(long[] cellKeys) {
+		ensureCapacity(size + cellKeys.length);
+		MemorySegment.copy(cellKeys, 0, cells, ValueLayout.JAVA_LONG, size * Long.BYTES, cellKeys.length);
+		size += cellKeys.length;
+		sorted = false;
+	}
+
+	private void addCellKey(long cell) {
+		if (size == capacity) ensureCapacity(size + 1);
+		cells.setAtIndex(ValueLayout.JAVA_LONG, size++, cell);
+		sorted = false;
+	}
+
+	/**
+	 * @return The amount of cells that were added, including any duplicates.
+	 */
+	public long getCellCount() {
+		return size;
+	}
+
+	/**
+	 * Creates the platter from all chunks that were added so far.
+	 *
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromChunks(Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromChunks() {
+		return createPlatterFromCells(Cheese.CHUNK_CELL_SIZE);
+	}
+
+	/**
+	 * Creates the platter from all cells that were added so far.
+	 * More cells can still be added afterwards, to create a bigger platter later.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @return A collection of {@link Cheese} objects, each representing a single connected area.
+	 * @see Cheese#createPlatterFromCells(Vector2d, Vector2i...)
+	 */
+	public Collection<Cheese> createPlatterFromCells(Vector2d cellSize) {
+		sort();
+
+		RunLabeling.Collector collector = new RunLabeling.Collector();
+		for (long i = 0; i < size; i++) {
+			collector.add(cells.getAtIndex(ValueLayout.JAVA_LONG, i));
+		}
+
+		NestedCheese[] nested = Cheese.traceNested(cellSize, collector.finish());
+		List<Cheese> platter = new ArrayList<>(nested.length);
+		for (NestedCheese cheese : nested) {
+			platter.add(cheese.getCheese());
+		}
+		return platter;
+	}
+
+	/**
+	 * Frees the memory of the cells, or unmaps the file.
+	 * The builder can not be used anymore afterwards.
+	 *
+	 * @throws UncheckedIOException If the file could not be closed.
+	 */
+	@Override
+	public void close() {
+		arena.close();
+		if (file != null) {
+			try {
+				file.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Grows the cell segment to at least the required capacity.
+	 * A new segment is allocated (or mapped) in a new arena, and the old arena is closed, so its memory is freed right away.
+	 */
+	private void ensureCapacity(long required) {
+		if (required <= capacity) return;
+		long newCapacity = Math.max(required, capacity * 2);
+		Arena newArena = Arena.ofConfined();
+		try {
+			MemorySegment newCells;
+			if (file == null) {
+				newCells = newArena.allocate(newCapacity * Long.BYTES, Long.BYTES);
+				MemorySegment.copy(cells, 0, newCells, 0, size * Long.BYTES);
+			} else {
+				// the cells are already in the file, so mapping a bigger part of it is enough
+				newCells = file.map(FileChannel.MapMode.READ_WRITE, 0, newCapacity * Long.BYTES, newArena);
+			}
+			arena.close();
+			arena = newArena;
+			cells = newCells;
+			capacity = newCapacity;
+		} catch (IOException e) {
+			newArena.close();
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			newArena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Sorts the cells with a radix sort, 16 bits at a time, into a scratch segment and back.<br>
+	 * Digits that are the same for all cells, like the upper bits of coordinates that are close together, are skipped.
+	 */
+	private void sort() {
+		if (sorted) return;
+		if (size <= 1) {
+			sorted = true;
+			return;
+		}
+
+		// count all digits in a single pass
+		long[][] counts = new long[CellKey.RADIX_PASSES][CellKey.RADIX_SIZE];
+		for (long i = 0; i < size; i++) {
+			long key = CellKey.sortKey(cells.getAtIndex(ValueLayout.JAVA_LONG, i));
+			for (int d = 0; d < CellKey.RADIX_PASSES; d++) {
+				counts[d][CellKey.radixDigit(key, d)]++;
+			}
+		}
+
+		try (Arena scratchArena = Arena.ofConfined()) {
+			MemorySegment scratch = file == null
+					? scratchArena.allocate(size * Long.BYTES, Long.BYTES)
+					// put the scratch space behind the cells in the same file
+					: file.map(FileChannel.MapMode.READ_WRITE, capacity * Long.BYTES, size * Long.BYTES, scratchArena);
+
+			MemorySegment from = cells, to = scratch;
+			for (int d = 0; d < CellKey.RADIX_PASSES; d++) {
+				long[] count = counts[d];
+				if (count[CellKey.radixDigit(CellKey.sortKey(from.getAtIndex(ValueLayout.JAVA_LONG, 0)), d)] == size) continue;
+
+				// turn the counts into the start index of each digit
+				long[] starts = new long[CellKey.RADIX_SIZE];
+				long start = 0;
+				for (int digit = 0; digit < CellKey.RADIX_SIZE; digit++) {
+					starts[digit] = start;
+					start += count[digit];
+				}
+
+				for (long i = 0; i < size; i++) {
+					long cell = from.getAtIndex(ValueLayout.JAVA_LONG, i);
+					int digit = CellKey.radixDigit(CellKey.sortKey(cell), d);
+					to.setAtIndex(ValueLayout.JAVA_LONG, starts[digit]++, cell);
+				}
+				MemorySegment swap = from;
+				from = to;
+				to = swap;
+			}
+			if (from != cells) MemorySegment.copy(from, 0, cells, 0, size * Long.BYTES);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		if (file != null) {
+			// give the scratch space back
+			try {
+				file.truncate(capacity * Long.BYTES);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		sorted = true;
+	}
+}
@@ -0,0 +1,378 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An index over a whole platter of {@link Cheese}s, to quickly find which cheese is at a position,
+ * which cheeses are in an area, or which cheese is closest to a position.<br>
+ * <br>
+ * The bounding boxes of the cheeses are packed into an R-tree with the Sort-Tile-Recursive method:
+ * the boxes are sorted into vertical strips, and each strip into groups of {@value #NODE_SIZE},
+ * which then become the boxes of the level above, until only one box is left.
+ * A query only goes into the boxes that can contain an answer, so it takes O(log n) time for a platter of n cheeses.<br>
+ * Each cheese is also turned into a {@link PreparedCheese}, so checking a single cheese is fast as well.<br>
+ * This class is immutable, so it can be used from multiple threads at once.
+ */
+public class PlatterIndex {
+	/** How many children each box in the tree has, at most */
+	private static final int NODE_SIZE = 16;
+
+	/** The cheeses, in the order of the tree */
+	private final PreparedCheese[] cheeses;
+	/** minX, minY, maxX, maxY of every node. The leaf nodes come first, and the root is the last one */
+	private final double[] nodeBounds;
+	/** The first child of every node, which is a cheese for the leaf nodes, and a node for the others */
+	private final int[] nodeFirst;
+	/** The amount of children of every node */
+	private final int[] nodeCount;
+	/** The amount of leaf nodes */
+	private final int leafCount;
+	/** The amount of levels of nodes, including the leaf nodes */
+	private final int levels;
+
+	/**
+	 * Builds the index. This takes O(n log n) time, so keep the index around for as long as the platter doesn't change.
+	 *
+	 * @param platter The cheeses to index, usually a platter from one of the <code>createPlatter</code> methods in {@link Cheese}.
+	 *                The cheeses are allowed to overlap, but then {@link #getCheeseAt(double, double)} only finds one of them.
+	 */
+	public PlatterIndex(Collection<Cheese> platter) {
+		Cheese[] input = platter.toArray(Cheese[]::new);
+		double[] bounds = new double[input.length * 4];
+		for (int i = 0; i < input.length; i++) {
+			Cheese cheese = input[i];
+			bounds[i * 4] = cheese.getMinX();
+			bounds[i * 4 + 1] = cheese.getMinY();
+			bounds[i * 4 + 2] = cheese.getMaxX();
+			bounds[i * 4 + 3] = cheese.getMaxY();
+		}
+
+		// put the cheeses in the order of the tree, and make the leaf nodes
+		int[] order = sortTileRecursive(bounds, input.length);
+		cheeses = new PreparedCheese[input.length];
+		for (int i = 0; i < input.length; i++) {
+			cheeses[i] = new PreparedCheese(input[order[i]]);
+		}
+		bounds = reorder(bounds, order);
+
+		List<double[]> levelBounds = new ArrayList<>();
+		List<int[]> levelFirsts = new ArrayList<>();
+		List<int[]> levelCounts = new ArrayList<>();
+		int levelSize = input.length;
+		do {
+			int parents = Math.max(1, (levelSize + NODE_SIZE - 1) / NODE_SIZE);
+			double[] parentBounds = new double[parents * 4];
+			int[] parentFirst = new int[parents];
+			int[] parentCount = new int[parents];
+			for (int parent = 0; parent < parents; parent++) {
+				int first = parent * NODE_SIZE;
+				int count = Math.min(NODE_SIZE, levelSize - first);
+				parentFirst[parent] = first;
+				parentCount[parent] = count;
+				parentBounds[parent * 4] = parentBounds[parent * 4 + 1] = Double.POSITIVE_INFINITY;
+				parentBounds[parent * 4 + 2] = parentBounds[parent * 4 + 3] = Double.NEGATIVE_INFINITY;
+				for (int child = first; child < first + count; child++) {
+					parentBounds[parent * 4] = Math.min(parentBounds[parent * 4], bounds[child * 4]);
+					parentBounds[parent * 4 + 1] = Math.min(parentBounds[parent * 4 + 1], bounds[child * 4 + 1]);
+					parentBounds[parent * 4 + 2] = Math.max(parentBounds[parent * 4 + 2], bounds[child * 4 + 2]);
+					parentBounds[parent * 4 + 3] = Math.max(parentBounds[parent * 4 + 3], bounds[child * 4 + 3]);
+				}
+			}
+
+			// the children of the level above point into this level, so sort this level before making the level above
+			if (parents > 1) {
+				order = sortTileRecursive(parentBounds, parents);
+				parentBounds = reorder(parentBounds, order);
+				parentFirst = reorder(parentFirst, order);
+				parentCount = reorder(parentCount, order);
+			}
+			levelBounds.add(parentBounds);
+			levelFirsts.add(parentFirst);
+			levelCounts.add(parentCount);
+			bounds = parentBounds;
+			levelSize = parents;
+		} while (levelSize > 1);
+
+		// put all levels after each other, and move the children of the upper levels to where their level starts
+		int nodes = 0;
+		for (int[] level : levelFirsts) nodes += level.length;
+		nodeBounds = new double[nodes * 4];
+		nodeFirst = new int[nodes];
+		nodeCount = new int[nodes];
+		leafCount = levelFirsts.get(0).length;
+		levels = levelFirsts.size();
+		int start = 0, childStart = 0;
+		for (int level = 0; level < levelFirsts.size(); level++) {
+			int[] first = levelFirsts.get(level);
+			System.arraycopy(levelBounds.get(level), 0, nodeBounds, start * 4, first.length * 4);
+			System.arraycopy(levelCounts.get(level), 0, nodeCount, start, first.length);
+			for (int i = 0; i < first.length; i++) nodeFirst[start + i] = first[i] + childStart;
+			childStart = start;
+			start += first.length;
+		}
+	}
+
+	/**
+	 * @return The amount of cheeses in the index.
+	 */
+	public int size() {
+		return cheeses.length;
+	}
+
+	/**
+	 * Finds the cheese that contains a position, like which claim a block is in.<br>
+	 * This doesn't allocate any memory.
+	 *
+	 * @param x The x coordinate of the position.
+	 * @param y The y coordinate of the position, which is the z coordinate in the world.
+	 * @return The cheese that contains the position, or <code>null</code> if there is none.
+	 * @see PreparedCheese#contains(double, double)
+	 */
+	public @Nullable Cheese getCheeseAt(double x, double y) {
+		if (cheeses.length == 0) return null;
+		return getCheeseAt(nodeBounds.length / 4 - 1, x, y);
+	}
+
+	/**
+	 * Same as {@link #getCheeseAt(double, double)}, but for a position in a vector.
+	 *
+	 * @param position The position. Its y coordinate is the z coordinate in the world.
+	 * @return The cheese that contains the position, or <code>null</code> if there is none.
+	 */
+	public @Nullable Cheese getCheeseAt(Vector2d position) {
+		return getCheeseAt(position.getX(), position.getY());
+	}
+
+	private @Nullable Cheese getCheeseAt(int node, double x, double y) {
+		if (!(x >= nodeBounds[node * 4] && x < nodeBounds[node * 4 + 2] && y >= nodeBounds[node * 4 + 1] && y < nodeBounds[node * 4 + 3])) return null;
+		int first = nodeFirst[node];
+		int end = first + nodeCount[node];
+		if (node < leafCount) {
+			for (int i = first; i < end; i++) {
+				if (cheeses[i].contains(x, y)) return cheeses[i].getCheese();
+			}
+		} else {
+			for (int child = first; child < end; child++) {
+				Cheese cheese = getCheeseAt(child, x, y);
+				if (cheese != null) return cheese;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the cheeses whose bounding boxes overlap an area, like the claims that may be visible in a tile.<br>
+	 * A cheese with a hole where the area is, is also included.
+	 *
+	 * @param minX The lowest x coordinate of the area.
+	 * @param minY The lowest y coordinate of the area, which is the z coordinate in the world.
+	 * @param maxX The highest x coordinate of the area.
+	 * @param maxY The highest y coordinate of the area, which is the z coordinate in the world.
+	 * @return The cheeses that overlap the area, in no particular order.
+	 */
+	public List<Cheese> getCheesesIn(double minX, double minY, double maxX, double maxY) {
+		List<Cheese> found = new ArrayList<>();
+		if (cheeses.length > 0) getCheesesIn(nodeBounds.length / 4 - 1, minX, minY, maxX, maxY, found);
+		return found;
+	}
+
+	private void getCheesesIn(int node, double minX, double minY, double maxX, double maxY, List<Cheese> found) {
+		if (nodeBounds[node * 4] >= maxX || nodeBounds[node * 4 + 2] <= minX || nodeBounds[node * 4 + 1] >= maxY || nodeBounds[node * 4 + 3] <= minY) return;
+		int first = nodeFirst[node];
+		int end = first + nodeCount[node];
+		if (node < leafCount) {
+			for (int i = first; i < end; i++) {
+				Cheese cheese = cheeses[i].getCheese();
+				if (cheese.getMinX() < maxX && cheese.getMaxX() > minX && cheese.getMinY() < maxY && cheese.getMaxY() > minY) found.add(cheese);
+			}
+		} else {
+			for (int child = first; child < end; child++) getCheesesIn(child, minX, minY, maxX, maxY, found);
+		}
+	}
+
+	/**
+	 * Finds the cheese that is closest to a position, measured to the nearest side of the cheese.
+	 * A cheese that contains the position has a distance of 0.
+	 *
+	 * @param x The x coordinate of the position.
+	 * @param y The y coordinate of the position, which is the z coordinate in the world.
+	 * @return The closest cheese, or <code>null</code> if the index is empty.
+	 */
+	public @Nullable Cheese getNearestCheese(double x, double y) {
+		return getNearestCheese(x, y, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Same as {@link #getNearestCheese(double, double)}, but ignores cheeses that are further away than a maximum distance,
+	 * which makes the search faster.
+	 *
+	 * @param x           The x coordinate of the position.
+	 * @param y           The y coordinate of the position, which is the z coordinate in the world.
+	 * @param maxDistance The maximum distance to look for cheeses in.
+	 * @return The closest cheese, or <code>null</code> if there is none within the maximum distance.
+	 */
+	public @Nullable Cheese getNearestCheese(double x, double y, double maxDistance) {
+		Cheese containing = getCheeseAt(x, y);
+		if (containing != null || cheeses.length == 0) return containing;
+
+		Nearest nearest = new Nearest(maxDistance * maxDistance, levels);
+		getNearestCheese(nodeBounds.length / 4 - 1, 0, x, y, nearest);
+		return nearest.cheese;
+	}
+
+	private static class Nearest {
+		private double distanceSquared;
+		private @Nullable Cheese cheese = null;
+		/** The children of the nodes that are being searched, sorted by their distance, with room for {@value #NODE_SIZE} per level */
+		private final int[] children;
+		private final double[] distances;
+
+		private Nearest(double distanceSquared, int levels) {
+			this.distanceSquared = distanceSquared;
+			this.children = new int[levels * NODE_SIZE];
+			this.distances = new double[levels * NODE_SIZE];
+		}
+	}
+
+	private void getNearestCheese(int node, int depth, double x, double y, Nearest nearest) {
+		if (boxDistanceSquared(nodeBounds, node, x, y) > nearest.distanceSquared) return;
+		int first = nodeFirst[node];
+		int end = first + nodeCount[node];
+		if (node < leafCount) {
+			for (int i = first; i < end; i++) {
+				Cheese cheese = cheeses[i].getCheese();
+				double dx = Math.max(0, Math.max(cheese.getMinX() - x, x - cheese.getMaxX()));
+				double dy = Math.max(0, Math.max(cheese.getMinY() - y, y - cheese.getMaxY()));
+				if (dx * dx + dy * dy > nearest.distanceSquared) continue;
+
+				double distance = sideDistanceSquared(cheese, x, y);
+				if (distance <= nearest.distanceSquared) {
+					nearest.distanceSquared = distance;
+					nearest.cheese = cheese;
+				}
+			}
+		} else {
+			// go into the closest boxes first, so the further ones are more likely to be skipped
+			int[] children = nearest.children;
+			double[] distances = nearest.distances;
+			int start = depth * NODE_SIZE;
+			for (int child = first; child < end; child++) {
+				// insertion sort, as there are only a few children
+				double distance = boxDistanceSquared(nodeBounds, child, x, y);
+				int i = start + child - first;
+				for (; i > start && distances[i - 1] > distance; i--) {
+					children[i] = children[i - 1];
+					distances[i] = distances[i - 1];
+				}
+				children[i] = child;
+				distances[i] = distance;
+			}
+			for (int i = start; i < start + end - first; i++) getNearestCheese(children[i], depth + 1, x, y, nearest);
+		}
+	}
+
+	private static double boxDistanceSquared(double[] bounds, int box, double x, double y) {
+		double dx = Math.max(0, Math.max(bounds[box * 4] - x, x - bounds[box * 4 + 2]));
+		double dy = Math.max(0, Math.max(bounds[box * 4 + 1] - y, y - bounds[box * 4 + 3]));
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * @return The squared distance from the position to the closest side of any line of the cheese
+	 */
+	private static double sideDistanceSquared(Cheese cheese, double x, double y) {
+		double closest = Double.POSITIVE_INFINITY;
+		for (int line = 0; line < cheese.getLineCount(); line++) {
+			int points = cheese.getPointCount(line);
+			for (int point = 0; point < points; point++) {
+				int next = point + 1 == points ? 0 : point + 1;
+				double x1 = cheese.getX(line, point), y1 = cheese.getY(line, point);
+				double sideX = cheese.getX(line, next) - x1, sideY = cheese.getY(line, next) - y1;
+				double t = ((x - x1) * sideX + (y - y1) * sideY) / (sideX * sideX + sideY * sideY);
+				t = Math.max(0, Math.min(1, t));
+				double dx = x1 + t * sideX - x, dy = y1 + t * sideY - y;
+				closest = Math.min(closest, dx * dx + dy * dy);
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * @return The order of the boxes in the tree: in vertical strips by their centre x, and within each strip by their centre y
+	 */
+	private static int[] sortTileRecursive(double[] bounds, int count) {
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++) order[i] = i;
+		double[] keys = new double[count];
+		int[] buffer = new int[count];
+		for (int box = 0; box < count; box++) keys[box] = bounds[box * 4] + bounds[box * 4 + 2];
+		sortByKey(order, 0, count, keys, buffer);
+
+		int parents = (count + NODE_SIZE - 1) / NODE_SIZE;
+		int strips = (int) Math.ceil(Math.sqrt(parents));
+		int stripSize = strips == 0 ? count : (parents + strips - 1) / strips * NODE_SIZE;
+		for (int box = 0; box < count; box++) keys[box] = bounds[box * 4 + 1] + bounds[box * 4 + 3];
+		for (int start = 0; start < count; start += stripSize) {
+			sortByKey(order, start, Math.min(count, start + stripSize), keys, buffer);
+		}
+		return order;
+	}
+
+	/**
+	 * Merge sort on the boxes from <code>from</code> (inclusive) to <code>to</code> (exclusive) of the order, by the key of every box.
+	 * Boxes with the same key stay in the same order.
+	 *
+	 * @param buffer Room to merge in, at least as long as the order.
+	 */
+	private static void sortByKey(int[] order, int from, int to, double[] keys, int[] buffer) {
+		if (to - from <= NODE_SIZE) {
+			for (int i = from + 1; i < to; i++) {
+				int box = order[i];
+				int j = i;
+				for (; j > from && Double.compare(keys[order[j - 1]], keys[box]) > 0; j--) order[j] = order[j - 1];
+				order[j] = box;
+			}
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		sortByKey(order, from, middle, keys, buffer);
+		sortByKey(order, middle, to, keys, buffer);
+		if (Double.compare(keys[order[middle - 1]], keys[order[middle]]) <= 0) return; // already in order
+
+		// the merged boxes never overtake the second half, so only the first half has to be moved out of the way
+		System.arraycopy(order, from, buffer, from, middle - from);
+		int i = from, j = middle, k = from;
+		while (i < middle && j < to) order[k++] = Double.compare(keys[order[j]], keys[buffer[i]]) < 0 ? order[j++] : buffer[i++];
+		while (i < middle) order[k++] = buffer[i++];
+	}
+
+	private static double[] reorder(double[] bounds, int[] order) {
+		double[] sorted = new double[bounds.length];
+		for (int i = 0; i < order.length; i++) System.arraycopy(bounds, order[i] * 4, sorted, i * 4, 4);
+		return sorted;
+	}
+
+	private static int[] reorder(int[] values, int[] order) {
+		int[] sorted = new int[values.length];
+		for (int i = 0; i < order.length; i++) sorted[i] = values[order[i]];
+		return sorted;
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Creates a platter a little bit at a time, for when it has to be created on a thread that can't be blocked for long,
+ * like the server thread on platforms where markers can only be changed from there.<br>
+ * <br>
+ * Every call to {@link #step(long)} works until its time is up, and then remembers where it was, so the next call can continue from there.
+ * The cells are packed, sorted with a radix sort, collapsed into runs, joined into areas, and then traced one area at a time,
+ * which all stop after a block of {@value #BLOCK_SIZE} cells, runs or border edges to check the time.
+ * Even a single very large area is traced in blocks, by walking along its runs, so a step never takes much longer than its budget.<br>
+ * <br>
+ * This class is not thread-safe.
+ *
+ * @see Cheese#createPlatterFromCells(Vector2d, Vector2i...)
+ */
+public class PlatterJob {
+	private static final int BLOCK_SIZE = 4096;
+
+	private enum Stage {PACK, COUNT, SCATTER, COLLECT, LABEL, TRACE, DONE}
+
+	private final Vector2d cellSize;
+	private final Vector2i[] cells;
+	private long[] cellKeys;
+	private long[] buffer;
+
+	private Stage stage = Stage.PACK;
+	/** Where the current stage is, in cells or in areas */
+	private int position = 0;
+	private int radixPass = 0;
+	private final int[] radixOffsets = new int[CellKey.RADIX_SIZE];
+
+	private final RunLabeling.Collector collector = new RunLabeling.Collector();
+	private RunLabeling.Labeler labeler;
+	private RunLabeling labeling;
+	private long[] runTopLines;
+	private NestedCheese[] nested;
+	/** The area that is being traced, if any */
+	private BorderTracer tracer;
+	private Collection<Cheese> platter;
+
+	/** Counted in cells, for every stage */
+	private long work = 0;
+	private final long totalWork;
+
+	/**
+	 * Creates a job for a platter of chunks. Nothing is done until {@link #step(long)} is called.
+	 *
+	 * @param chunks The chunks to create the cheese from. Must not be changed until the job is done.
+	 * @return The job.
+	 * @see Cheese#createPlatterFromChunks(Vector2i...)
+	 */
+	public static PlatterJob forChunks(Vector2i... chunks) {
+		return new PlatterJob(Cheese.CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Creates a job for a platter of cells. Nothing is done until {@link #step(long)} is called.
+	 *
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from. Must not be changed until the job is done.
+	 */
+	public PlatterJob(Vector2d cellSize, Vector2i... cells) {
+		this.cellSize = cellSize;
+		this.cells = cells;
+		// packing, counting and scattering every radix pass, collecting, labeling, and tracing
+		this.totalWork = (long) cells.length * (CellKey.RADIX_PASSES * 2 + 4);
+	}
+
+	/**
+	 * Continues creating the platter, until it is done, or until the time is up.
+	 * Every call does at least a little bit of work, even when the time is already up.
+	 *
+	 * @param nanosBudget How long this step may take, in nanoseconds.
+	 * @return Whether the platter is done.
+	 */
+	public boolean step(long nanosBudget) {
+		long start = System.nanoTime();
+		while (stage != Stage.DONE) {
+			stepBlock();
+			if (System.nanoTime() - start >= nanosBudget) break;
+		}
+		return isDone();
+	}
+
+	/**
+	 * @return Whether the platter is done.
+	 */
+	public boolean isDone() {
+		return stage == Stage.DONE;
+	}
+
+	/**
+	 * @return How far along the job is, from <code>0.0</code> to <code>1.0</code>.
+	 */
+	public double getProgress() {
+		if (isDone()) return 1;
+		if (totalWork == 0) return 0;
+		return (double) work / totalWork;
+	}
+
+	/**
+	 * @return An unmodifiable collection of {@link Cheese} objects, each representing a single connected area.
+	 * @throws IllegalStateException If the platter is not done yet.
+	 */
+	public Collection<Cheese> getPlatter() {
+		if (!isDone()) throw new IllegalStateException("The platter is not done yet");
+		return platter;
+	}
+
+	/**
+	 * Does a single block of work of the current stage
+	 */
+	private void stepBlock() {
+		switch (stage) {
+			case PACK -> {
+				if (position == 0) {
+					cellKeys = new long[cells.length];
+					buffer = new long[cells.length];
+				}
+				int end = Math.min(cells.length, position + BLOCK_SIZE);
+				for (int i = position; i < end; i++) {
+					cellKeys[i] = CellKey.sortKey(CellKey.pack(cells[i]));
+				}
+				finishBlock(end, Stage.COUNT);
+			}
+			case COUNT -> {
+				int end = Math.min(cellKeys.length, position + BLOCK_SIZE);
+				for (int i = position; i < end; i++) {
+					radixOffsets[CellKey.radixDigit(cellKeys[i], radixPass)]++;
+				}
+				if (end == cellKeys.length) {
+					// turn the counts into the index where every digit starts
+					int offset = 0;
+					for (int digit = 0; digit < CellKey.RADIX_SIZE; digit++) {
+						int count = radixOffsets[digit];
+						radixOffsets[digit] = offset;
+						offset += count;
+					}
+				}
+				finishBlock(end, Stage.SCATTER);
+			}
+			case SCATTER -> {
+				int end = Math.min(cellKeys.length, position + BLOCK_SIZE);
+				for (int i = position; i < end; i++) {
+					long key = cellKeys[i];
+					buffer[radixOffsets[CellKey.radixDigit(key, radixPass)]++] = key;
+				}
+				if (end == cellKeys.length) {
+					long[] sorted = buffer;
+					buffer = cellKeys;
+					cellKeys = sorted;
+					Arrays.fill(radixOffsets, 0);
+					radixPass++;
+				}
+				finishBlock(end, radixPass < CellKey.RADIX_PASSES ? Stage.COUNT : Stage.COLLECT);
+			}
+			case COLLECT -> {
+				buffer = null;
+				int end = Math.min(cellKeys.length, position + BLOCK_SIZE);
+				for (int i = position; i < end; i++) {
+					collector.add(CellKey.sortKey(cellKeys[i]));
+				}
+				finishBlock(end, Stage.LABEL);
+			}
+			case LABEL -> {
+				if (labeler == null) {
+					cellKeys = null;
+					labeler = collector.labeler();
+				}
+				long before = labelWork();
+				boolean labeled = labeler.step(BLOCK_SIZE);
+				work += labelWork() - before;
+				if (!labeled) return;
+				labeling = labeler.result();
+				labeler = null;
+				runTopLines = new long[labeling.runCount()];
+				nested = new NestedCheese[labeling.groupCount()];
+				stage = Stage.TRACE;
+			}
+			case TRACE -> {
+				if (position == nested.length) {
+					List<Cheese> cheeses = new ArrayList<>(nested.length);
+					for (NestedCheese cheese : nested) {
+						cheeses.add(cheese.getCheese());
+					}
+					platter = Collections.unmodifiableList(cheeses);
+					labeling = null;
+					runTopLines = null;
+					nested = null;
+					stage = Stage.DONE;
+					return;
+				}
+				if (tracer == null) {
+					tracer = new RunTracer(labeling, position);
+					tracer.recordTopLines(labeling, position, runTopLines);
+					tracer.start(cellSize);
+				}
+				if (!tracer.step(BLOCK_SIZE)) return;
+				Cheese.nestGroup(labeling, position, tracer.result(), runTopLines, nested);
+				tracer = null;
+				work += labeling.groupSize(position);
+				position++;
+			}
+			case DONE -> {
+			}
+		}
+	}
+
+	/**
+	 * @return How far along the labeling is, scaled to the amount of cells, as there are only as many runs as cells at most
+	 */
+	private long labelWork() {
+		long total = labeler.totalWork();
+		return total == 0 ? 0 : labeler.progress() * cells.length / total;
+	}
+
+	/**
+	 * Moves to the next stage once the current one has gone through all cells
+	 */
+	private void finishBlock(int end, Stage next) {
+		work += end - position;
+		position = end;
+		if (position == cells.length) {
+			position = 0;
+			stage = next;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates platters in the background, where only the latest platter for each key matters,
+ * like the markers of a claim that is edited again before its previous edit has been rendered.<br>
+ * <br>
+ * Submitting a new platter for a key cancels the one that is still being created for that key,
+ * which then stops before tracing its next area, instead of running to completion for nothing.<br>
+ * This class is thread-safe.
+ *
+ * @param <K> The type of the keys, like the ID of a claim, or of a marker set.
+ * @see Cheese#createPlatterFromCellsAsync(Vector2d, Executor, Vector2i...)
+ */
+public class PlatterScheduler<K> {
+	private final Executor executor;
+	private final Map<K, CompletableFuture<Collection<Cheese>>> running = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new scheduler that creates every platter on a new virtual thread.
+	 */
+	public PlatterScheduler() {
+		this(Cheese.VIRTUAL_THREADS);
+	}
+
+	/**
+	 * Creates a new scheduler that creates the platters on the given executor.
+	 *
+	 * @param executor The executor to create the platters on.
+	 */
+	public PlatterScheduler(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Starts creating a platter from chunks, and cancels the platter that is still being created for the same key.
+	 *
+	 * @param key    The key of the platter.
+	 * @param chunks The chunks to create the cheese from. Must not be changed until the future is done.
+	 * @return A future that completes with the platter, or is cancelled when a newer platter is submitted for the same key.
+	 * @see Cheese#createPlatterFromChunks(Vector2i...)
+	 */
+	public CompletableFuture<Collection<Cheese>> submitChunks(K key, Vector2i... chunks) {
+		return submitCells(key, Cheese.CHUNK_CELL_SIZE, chunks);
+	}
+
+	/**
+	 * Starts creating a platter from cells, and cancels the platter that is still being created for the same key.
+	 *
+	 * @param key      The key of the platter.
+	 * @param cellSize The size of a single cell.
+	 * @param cells    The cells to create the cheese from. Must not be changed until the future is done.
+	 * @return A future that completes with the platter, or is cancelled when a newer platter is submitted for the same key.
+	 * @see Cheese#createPlatterFromCells(Vector2d, Vector2i...)
+	 */
+	public CompletableFuture<Collection<Cheese>> submitCells(K key, Vector2d cellSize, Vector2i... cells) {
+		CompletableFuture<Collection<Cheese>> future = Cheese.createPlatterFromCellsAsync(cellSize, executor, cells);
+		CompletableFuture<Collection<Cheese>> previous = running.put(key, future);
+		if (previous != null) previous.cancel(false);
+		// only forget the future if no newer one has been submitted in the meantime
+		future.whenComplete((platter, error) -> running.remove(key, future));
+		return future;
+	}
+
+	/**
+	 * Cancels the platter that is being created for a key, if there is any.
+	 *
+	 * @param key The key of the platter.
+	 * @return Whether a platter was cancelled.
+	 */
+	public boolean cancel(K key) {
+		CompletableFuture<Collection<Cheese>> future = running.remove(key);
+		return future != null && future.cancel(false);
+	}
+
+	/**
+	 * Cancels all platters that are being created.
+	 */
+	public void cancelAll() {
+		for (K key : running.keySet()) cancel(key);
+	}
+
+	/**
+	 * @return The amount of platters that are being created right now.
+	 */
+	public int getRunningCount() {
+		return running.size();
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import com.flowpowered.math.vector.Vector2d;
+
+import java.util.Arrays;
+
+/**
+ * A {@link Cheese} that is prepared for checking quickly whether points are inside of it,
+ * like checking on every move whether a player is inside a claim.<br>
+ * <br>
+ * The cheese is cut into horizontal slabs at the y coordinate of every point.
+ * Within a slab, no line starts or ends, so the sides that cross the slab are stored in order from left to right.
+ * A point is then found with two binary searches: one for the slab, and one for the amount of sides to the left of the point.
+ * If that amount is odd, the point is inside, which also takes care of the holes.
+ * A check takes O(log n) time, and does not allocate any memory.<br>
+ * <br>
+ * Points on the left and bottom border of the cheese are inside, and points on the right and top border are outside,
+ * so every block lies in exactly one cheese of a platter, like the cells do.
+ * Remember that the y coordinate of a cheese is the z coordinate in the world.<br>
+ * This class is immutable, so it can be used from multiple threads at once.
+ */
+public class PreparedCheese {
+	private final Cheese cheese;
+
+	/** The y coordinate of every slab border, sorted */
+	private final double[] slabYs;
+	/** Where the sides of each slab start in {@link #sideX} and {@link #sideSlope}, with one extra entry at the end */
+	private final int[] slabStarts;
+	/** The x coordinate of each side at the bottom of its slab, ordered from left to right within each slab */
+	private final double[] sideX;
+	/** How much the x coordinate of each side changes per unit of y */
+	private final double[] sideSlope;
+
+	/**
+	 * Prepares a cheese for point checks.
+	 * Every side is stored once for every slab that it crosses, so this takes O(n log n + k log k) time and O(n + k) memory
+	 * for a cheese with n points and k crossings of a side through a slab.
+	 * For most shapes, only a few sides cross each slab, but for shapes like spirals or combs, where many sides span many slabs,
+	 * k can grow up to O(n<sup>2</sup>).
+	 * Keep the prepared cheese around for as long as the cheese itself doesn't change.
+	 *
+	 * @param cheese The cheese to prepare.
+	 */
+	public PreparedCheese(Cheese cheese) {
+		this.cheese = cheese;
+
+		// 1. the slab borders: every distinct y coordinate
+		int pointCount = cheese.getVertexCount();
+		double[] ys = new double[pointCount];
+		int n = 0;
+		for (int line = 0; line < cheese.getLineCount(); line++) {
+			for (int point = 0; point < cheese.getPointCount(line); point++) {
+				ys[n++] = cheese.getY(line, point);
+			}
+		}
+		Arrays.sort(ys);
+		int distinct = 0;
+		for (int i = 0; i < ys.length; i++) {
+			if (i == 0 || ys[i] != ys[i - 1]) ys[distinct++] = ys[i];
+		}
+		slabYs = Arrays.copyOf(ys, distinct);
+		int slabCount = Math.max(0, distinct - 1);
+
+		// 2. count the sides that cross each slab, to know where each slab starts
+		slabStarts = new int[slabCount + 1];
+		forEachSide((x1, y1, x2, y2) -> {
+			for (int slab = slabOf(Math.min(y1, y2)), end = slabOf(Math.max(y1, y2)); slab < end; slab++) {
+				slabStarts[slab + 1]++;
+			}
+		});
+		for (int i = 0; i < slabCount; i++) slabStarts[i + 1] += slabStarts[i];
+
+		// 3. put the sides into their slabs
+		int sideCount = slabStarts[slabCount];
+		sideX = new double[sideCount];
+		sideSlope = new double[sideCount];
+		double[] middleX = new double[sideCount];
+		int[] fill = Arrays.copyOf(slabStarts, slabCount);
+		forEachSide((x1, y1, x2, y2) -> {
+			double slope = (x2 - x1) / (y2 - y1);
+			for (int slab = slabOf(Math.min(y1, y2)), end = slabOf(Math.max(y1, y2)); slab < end; slab++) {
+				int i = fill[slab]++;
+				double bottom = slabYs[slab];
+				sideX[i] = x1 + (bottom - y1) * slope;
+				sideSlope[i] = slope;
+				middleX[i] = x1 + ((bottom + slabYs[slab + 1]) / 2 - y1) * slope;
+			}
+		});
+
+		// 4. order the sides of each slab from left to right
+		// the lines never cross each other, so the order in the middle of the slab is the order in the whole slab
+		for (int slab = 0; slab < slabCount; slab++) {
+			sortSides(middleX, slabStarts[slab], slabStarts[slab + 1] - 1);
+		}
+	}
+
+	/**
+	 * @return The cheese that was prepared.
+	 */
+	public Cheese getCheese() {
+		return cheese;
+	}
+
+	/**
+	 * Checks whether a point is inside the cheese, and not inside any of its holes.
+	 *
+	 * @param x The x coordinate of the point.
+	 * @param y The y coordinate of the point, which is the z coordinate in the world.
+	 * @return Whether the point is inside the cheese.
+	 */
+	public boolean contains(double x, double y) {
+		if (!(x >= cheese.getMinX() && x < cheese.getMaxX() && y >= cheese.getMinY() && y < cheese.getMaxY())) return false;
+
+		int slab = slabOf(y);
+		double dy = y - slabYs[slab];
+
+		// count the sides at or to the left of the point
+		int low = slabStarts[slab], high = slabStarts[slab + 1] - 1;
+		int start = low;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (sideX[mid] + dy * sideSlope[mid] <= x) low = mid + 1;
+			else high = mid - 1;
+		}
+		return ((low - start) & 1) == 1;
+	}
+
+	/**
+	 * Same as {@link #contains(double, double)}, but for a point in a vector.
+	 *
+	 * @param point The point to check. Its y coordinate is the z coordinate in the world.
+	 * @return Whether the point is inside the cheese.
+	 */
+	public boolean contains(Vector2d point) {
+		return contains(point.getX(), point.getY());
+	}
+
+	/**
+	 * @return The index of the last slab border at or below the y coordinate
+	 */
+	private int slabOf(double y) {
+		int low = 0, high = slabYs.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (slabYs[mid] <= y) low = mid;
+			else high = mid - 1;
+		}
+		return low;
+	}
+
+	private interface SideConsumer {
+		void accept(double x1, double y1, double x2, double y2);
+	}
+
+	/**
+	 * Calls the consumer for every side of every line that isn't horizontal, as those never cross a slab
+	 */
+	private void forEachSide(SideConsumer consumer) {
+		for (int line = 0; line < cheese.getLineCount(); line++) {
+			int points = cheese.getPointCount(line);
+			for (int point = 0; point < points; point++) {
+				int next = point + 1 == points ? 0 : point + 1;
+				double y1 = cheese.getY(line, point), y2 = cheese.getY(line, next);
+				if (y1 == y2) continue;
+				consumer.accept(cheese.getX(line, point), y1, cheese.getX(line, next), y2);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the sides in the range (inclusive) by their x coordinate in the middle of the slab, with a quicksort
+	 */
+	private void sortSides(double[] middleX, int from, int to) {
+		while (from < to) {
+			if (to - from < 16) {
+				// insertion sort for the small ranges, which is what most slabs are
+				for (int i = from + 1; i <= to; i++) {
+					for (int j = i; j > from && middleX[j - 1] > middleX[j]; j--) swap(middleX, j - 1, j);
+				}
+				return;
+			}
+
+			double pivot = middleX[(from + to) >>> 1];
+			int i = from, j = to;
+			while (i <= j) {
+				while (middleX[i] < pivot) i++;
+				while (middleX[j] > pivot) j--;
+				if (i <= j) swap(middleX, i++, j--);
+			}
+			// recurse into the smaller half, and loop on the bigger one, to keep the stack small
+			if (j - from < to - i) {
+				sortSides(middleX, from, j);
+				from = i;
+			} else {
+				sortSides(middleX, i, to);
+				to = j;
+			}
+		}
+	}
+
+	private void swap(double[] middleX, int a, int b) {
+		double m = middleX[a];
+		middleX[a] = middleX[b];
+		middleX[b] = m;
+		double x = sideX[a];
+		sideX[a] = sideX[b];
+		sideX[b] = x;
+		double s = sideSlope[a];
+		sideSlope[a] = sideSlope[b];
+		sideSlope[b] = s;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * Traces the borders of a set of cells by rasterizing them into a bitset the size of their bounding box,
+ * and following the contours on the bits, like marching squares.<br>
+ * This does not need any objects per cell or per edge, which makes it a lot cheaper than the edge-based tracer
+ * for regions that fill at least a quarter of their bounding box, as long as that box has at most 2<sup>30</sup> cells.<br>
+ * The result is exactly the same as with the {@link EdgeTracer}.
+ */
+final class RasterTracer extends BorderTracer {
+	/**
+	 * Cells have to fill at least this fraction of their bounding box for the raster to be used
+	 */
+	private static final double MIN_FILL_RATIO = 0.25;
+	/**
+	 * Upper limit for the amount of cells in the bounding box, to keep the bitsets a reasonable size
+	 */
+	private static final long MAX_AREA = 1L << 30;
+
+	private final int width, height;
+	private final long[] cells;
+	private final long[] visitedHorizontal;
+	private final long[] visitedVertical;
+
+	private RasterTracer(int minX, int minY, int width, int height) {
+		super(minX, minY);
+		this.width = width;
+		this.height = height;
+		this.cells = new long[words((long) width * height)];
+		this.visitedHorizontal = new long[words((long) width * (height + 1))];
+		this.visitedVertical = new long[words((long) (width + 1) * height)];
+	}
+
+	/**
+	 * Rasterizes the packed cells into a bitset, if they fill enough of their bounding box to be worth it.
+	 *
+	 * @param count How many cells at the start of the array to use.
+	 * @return The raster, or <code>null</code> if the cells are too sparse and the edge-based tracer should be used
+	 */
+	static RasterTracer rasterize(long[] cellKeys, int count) {
+		if (count == 0) return null;
+
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			long cell = cellKeys[i];
+			int x = CellKey.x(cell), y = CellKey.y(cell);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+		long width = (long) maxX - minX + 1;
+		long height = (long) maxY - minY + 1;
+		long area = width * height;
+		if (area > MAX_AREA || count < area * MIN_FILL_RATIO) return null;
+
+		RasterTracer raster = new RasterTracer(minX, minY, (int) width, (int) height);
+		for (int i = 0; i < count; i++) {
+			long cell = cellKeys[i];
+			raster.set(CellKey.x(cell) - minX, CellKey.y(cell) - minY);
+		}
+		return raster;
+	}
+
+	/**
+	 * Rasterizes a group of labeled cells into a bitset, straight from its runs,
+	 * if they fill enough of their bounding box to be worth it.
+	 *
+	 * @return The raster, or <code>null</code> if the cells are too sparse and the {@link RunTracer} should be used
+	 */
+	static RasterTracer rasterize(RunLabeling labeling, int group) {
+		int start = labeling.groupRunsStart(group), end = labeling.groupRunsEnd(group);
+		// the runs are sorted by x, so only y has to be searched
+		int minX = labeling.runX(labeling.groupRun(start)), maxX = labeling.runX(labeling.groupRun(end - 1));
+		int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+		for (int i = start; i < end; i++) {
+			int run = labeling.groupRun(i);
+			minY = Math.min(minY, labeling.runMinY(run));
+			maxY = Math.max(maxY, labeling.runMaxY(run));
+		}
+		long width = (long) maxX - minX + 1;
+		long height = (long) maxY - minY + 1;
+		long area = width * height;
+		if (area > MAX_AREA || labeling.groupSize(group) < area * MIN_FILL_RATIO) return null;
+
+		RasterTracer raster = new RasterTracer(minX, minY, (int) width, (int) height);
+		for (int i = start; i < end; i++) {
+			int run = labeling.groupRun(i);
+			// a run is a single stretch of bits, as the bits are stored column by column
+			long from = (long) (labeling.runX(run) - minX) * height + (labeling.runMinY(run) - minY);
+			raster.setRange(from, from + (labeling.runMaxY(run) - labeling.runMinY(run)) + 1);
+		}
+		return raster;
+	}
+
+	@Override
+	long scanCount() {
+		return (long) (width + 1) * (height + 1);
+	}
+
+	@Override
+	long scanVertex(long index) {
+		return CellKey.pack((int) (index / (height + 1)), (int) (index % (height + 1)));
+	}
+
+	@Override
+	int outgoing(int x, int y) {
+		boolean bottomLeft = get(x - 1, y - 1);
+		boolean bottomRight = get(x, y - 1);
+		boolean topLeft = get(x - 1, y);
+		boolean topRight = get(x, y);
+
+		// every cell has its edges in clockwise direction,
+		// so an edge is a border if the cell on its inner side is set, and the one on its outer side isn't
+		int mask = 0;
+		if (topRight && !bottomRight && !isSet(visitedHorizontal, horizontalIndex(x, y))) mask |= 1 << RIGHT;
+		if (topLeft && !topRight && !isSet(visitedVertical, verticalIndex(x, y))) mask |= 1 << UP;
+		if (bottomLeft && !topLeft && !isSet(visitedHorizontal, horizontalIndex(x - 1, y))) mask |= 1 << LEFT;
+		if (bottomRight && !bottomLeft && !isSet(visitedVertical, verticalIndex(x, y - 1))) mask |= 1 << DOWN;
+		return mask;
+	}
+
+	@Override
+	void visit(int x, int y, int direction) {
+		switch (direction) {
+			case RIGHT -> setBit(visitedHorizontal, horizontalIndex(x, y));
+			case LEFT -> setBit(visitedHorizontal, horizontalIndex(x - 1, y));
+			case UP -> setBit(visitedVertical, verticalIndex(x, y));
+			case DOWN -> setBit(visitedVertical, verticalIndex(x, y - 1));
+		}
+	}
+
+	private void set(int x, int y) {
+		setBit(cells, (long) x * height + y);
+	}
+
+	/**
+	 * Sets the bits from the first index up to, but not including, the second index
+	 */
+	private void setRange(long from, long to) {
+		int firstWord = (int) (from >>> 6), lastWord = (int) ((to - 1) >>> 6);
+		long firstMask = -1L << from, lastMask = -1L >>> -to;
+		if (firstWord == lastWord) {
+			cells[firstWord] |= firstMask & lastMask;
+			return;
+		}
+		cells[firstWord] |= firstMask;
+		for (int i = firstWord + 1; i < lastWord; i++) cells[i] = -1L;
+		cells[lastWord] |= lastMask;
+	}
+
+	private boolean get(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) return false;
+		return isSet(cells, (long) x * height + y);
+	}
+
+	private long horizontalIndex(int x, int y) {
+		return (long) x * (height + 1) + y;
+	}
+
+	private long verticalIndex(int x, int y) {
+		return (long) x * height + y;
+	}
+
+	private static boolean isSet(long[] bits, long index) {
+		return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	private static void setBit(long[] bits, long index) {
+		bits[(int) (index >>> 6)] |= 1L << index;
+	}
+
+	private static int words(long bits) {
+		return (int) ((bits + 63) >>> 6);
+	}
+}
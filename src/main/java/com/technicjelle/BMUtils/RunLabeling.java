@@ -0,0 +1,402 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.Arrays;
+
+/**
+ * Finds the groups of connected cells by collapsing the sorted cells into runs of consecutive cells,
+ * and joining the runs that touch each other with a union-find.<br>
+ * Connectivity is decided per run instead of per cell, and no hash lookups are needed,
+ * which makes this a lot faster than a flood fill for large amounts of cells.<br>
+ * Cells can also have an owner, in which case only cells of the same owner are joined, see {@link Collector#add(long, int)}.
+ */
+final class RunLabeling {
+	// the runs, sorted first by x, then by y
+	private final int runCount;
+	private final int[] runX, runMinY, runMaxY;
+	private final int[] runGroup;
+	/** The owner of every run, or <code>null</code> if all cells have the same owner */
+	private final int[] runOwner;
+
+	/** The runs of all groups, grouped by their group, in the order of the lowest cell of each group */
+	private final int[] groupRuns;
+	/** Where each group starts in {@link #groupRuns}, with one extra entry at the end */
+	private final int[] groupRunStarts;
+	/** The amount of cells in each group */
+	private final int[] groupSizes;
+
+	private RunLabeling(Labeler labeler) {
+		this.runCount = labeler.runCount;
+		this.runX = labeler.runX;
+		this.runMinY = labeler.runMinY;
+		this.runMaxY = labeler.runMaxY;
+		this.runGroup = labeler.runGroup;
+		this.runOwner = labeler.runOwner;
+		this.groupSizes = labeler.groupSizes;
+		this.groupRuns = labeler.groupRuns;
+		this.groupRunStarts = labeler.groupRunStarts;
+	}
+
+	int groupCount() {
+		return groupSizes.length;
+	}
+
+	/**
+	 * @return The amount of distinct cells in the group
+	 */
+	int groupSize(int group) {
+		return groupSizes[group];
+	}
+
+	/**
+	 * @return The packed cells of the group, sorted first by x, then by y
+	 */
+	long[] group(int group) {
+		long[] cells = new long[groupSizes[group]];
+		int n = 0;
+		for (int i = groupRunStarts[group]; i < groupRunStarts[group + 1]; i++) {
+			int run = groupRuns[i];
+			for (int y = runMinY[run]; ; y++) {
+				cells[n++] = CellKey.pack(runX[run], y);
+				if (y == runMaxY[run]) break; // avoids overflowing at Integer.MAX_VALUE
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return The index of the first run of the group in {@link #groupRun(int)}
+	 */
+	int groupRunsStart(int group) {
+		return groupRunStarts[group];
+	}
+
+	/**
+	 * @return The index after the last run of the group in {@link #groupRun(int)}
+	 */
+	int groupRunsEnd(int group) {
+		return groupRunStarts[group + 1];
+	}
+
+	/**
+	 * @return The run at that index, with the runs grouped by their group
+	 */
+	int groupRun(int index) {
+		return groupRuns[index];
+	}
+
+	int runX(int run) {
+		return runX[run];
+	}
+
+	int runMinY(int run) {
+		return runMinY[run];
+	}
+
+	int runMaxY(int run) {
+		return runMaxY[run];
+	}
+
+	int runGroup(int run) {
+		return runGroup[run];
+	}
+
+	/**
+	 * @return The owner of the cells of the group, as given to {@link Collector#add(long, int)}
+	 */
+	int groupOwner(int group) {
+		return runOwner == null ? 0 : runOwner[groupRuns[groupRunStarts[group]]];
+	}
+
+	/**
+	 * @return The group of the cell, or <code>-1</code> if the cell is not in any group
+	 */
+	int groupAt(int x, int y) {
+		int run = runAt(x, y);
+		return run < 0 ? -1 : runGroup[run];
+	}
+
+	/**
+	 * @return The index of the run that contains the cell, or <code>-1</code> if the cell is not in any run
+	 */
+	int runAt(int x, int y) {
+		int found = lastRunFrom(x, y);
+		return found >= 0 && runX[found] == x && runMaxY[found] >= y ? found : -1;
+	}
+
+	/**
+	 * @return The index of the last run that starts at or before the cell, first by x, then by y, or <code>-1</code> if there is none
+	 */
+	int lastRunFrom(int x, int y) {
+		int low = 0, high = runCount - 1, found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (runX[mid] < x || (runX[mid] == x && runMinY[mid] <= y)) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+
+	int runCount() {
+		return runCount;
+	}
+
+	/**
+	 * @return The closest run directly below the lowest cell of the group, in the same column, or <code>-1</code> if there is none
+	 */
+	int runBelow(int group) {
+		int run = groupRuns[groupRunStarts[group]];
+		return run > 0 && runX[run - 1] == runX[run] ? run - 1 : -1;
+	}
+
+	/**
+	 * @param sortedCells The packed cells, sorted with {@link CellKey#sort(long[], int, int)}. May contain duplicates.
+	 */
+	static RunLabeling label(long[] sortedCells) {
+		Collector collector = new Collector();
+		for (long cell : sortedCells) {
+			collector.add(cell);
+		}
+		return collector.finish();
+	}
+
+	/**
+	 * Collapses sorted cells into runs one cell at a time, so the cells don't all have to be in a single array.
+	 */
+	static final class Collector {
+		private int[] runX = new int[16];
+		private int[] runMinY = new int[16];
+		private int[] runMaxY = new int[16];
+		/** Only allocated once a cell with an owner other than <code>0</code> is added */
+		private int[] runOwner = null;
+		private int runCount = 0;
+		private long previous;
+		private boolean first = true;
+
+		/**
+		 * @param cell The next packed cell, in the order of {@link CellKey#sort(long[], int, int)}. May be the same as the previous one.
+		 */
+		void add(long cell) {
+			add(cell, 0);
+		}
+
+		/**
+		 * Same as {@link #add(long)}, but for a cell with an owner. Cells are only joined with cells of the same owner.
+		 *
+		 * @param owner The owner of the cell. A cell must not be added twice with different owners.
+		 */
+		void add(long cell, int owner) {
+			if (!first && cell == previous) return; // duplicate
+			first = false;
+			previous = cell;
+			int x = CellKey.x(cell), y = CellKey.y(cell);
+
+			// 1. collapse the cells into runs of consecutive y coordinates within the same x column
+			int last = runCount - 1;
+			if (last >= 0 && runX[last] == x && runMaxY[last] == y - 1 && ownerOf(last) == owner) {
+				runMaxY[last] = y;
+				return;
+			}
+
+			if (runCount == runX.length) {
+				int capacity = runCount * 2;
+				runX = Arrays.copyOf(runX, capacity);
+				runMinY = Arrays.copyOf(runMinY, capacity);
+				runMaxY = Arrays.copyOf(runMaxY, capacity);
+				if (runOwner != null) runOwner = Arrays.copyOf(runOwner, capacity);
+			}
+			if (owner != 0 && runOwner == null) runOwner = new int[runX.length];
+			runX[runCount] = x;
+			runMinY[runCount] = y;
+			runMaxY[runCount] = y;
+			if (runOwner != null) runOwner[runCount] = owner;
+			runCount++;
+		}
+
+		private int ownerOf(int run) {
+			return runOwner == null ? 0 : runOwner[run];
+		}
+
+		RunLabeling finish() {
+			Labeler labeler = labeler();
+			while (!labeler.step(Integer.MAX_VALUE)) {
+				// every step goes through all runs, so this only loops once per phase
+			}
+			return labeler.result();
+		}
+
+		/**
+		 * @return A labeler for the runs that were collected, to label them a few runs at a time. No more cells can be added after this
+		 */
+		Labeler labeler() {
+			return new Labeler(runCount, runX, runMinY, runMaxY, runOwner);
+		}
+	}
+
+	/**
+	 * Joins the runs into groups a limited amount of runs at a time, so it can be spread over multiple steps, like in {@link PlatterJob}.
+	 */
+	static final class Labeler {
+		private final int runCount;
+		private final int[] runX, runMinY, runMaxY;
+		private final int[] runOwner;
+		private final int[] parent;
+		private final int[] runGroup;
+		private int[] groupSizes;
+		private int groupCount = 0;
+		private int[] groupRunStarts;
+		private int[] groupRuns;
+		private int[] fill;
+
+		private int phase = 0;
+		/** The next run to go through in the current phase */
+		private int position = 0;
+		/** The first run of the previous column, while joining */
+		private int previousColumn = 0;
+
+		private Labeler(int runCount, int[] runX, int[] runMinY, int[] runMaxY, int[] runOwner) {
+			this.runCount = runCount;
+			this.runX = runX;
+			this.runMinY = runMinY;
+			this.runMaxY = runMaxY;
+			this.runOwner = runOwner;
+			this.parent = new int[runCount];
+			for (int i = 0; i < runCount; i++) parent[i] = i;
+			this.runGroup = new int[runCount];
+			this.groupSizes = new int[runCount];
+		}
+
+		/**
+		 * @param budget Roughly how many runs to go through before returning. Whole columns are joined at once.
+		 * @return Whether all runs have been labeled
+		 */
+		boolean step(int budget) {
+			int stop = budget >= runCount - position ? runCount : position + budget;
+			switch (phase) {
+				case 0 -> join(stop);
+				case 1 -> {
+					// 3. number the groups in the order of their first run, which contains the lowest cell of the group
+					for (int i = position; i < stop; i++) {
+						int root = find(parent, i);
+						// the root is always the lowest run of its group, see union()
+						int group = root == i ? groupCount++ : runGroup[root];
+						runGroup[i] = group;
+						groupSizes[group] += runMaxY[i] - runMinY[i] + 1;
+					}
+					position = stop;
+				}
+				case 2 -> {
+					// 4. sort the runs by group, keeping them sorted by x and y within each group
+					for (int i = position; i < stop; i++) groupRunStarts[runGroup[i] + 1]++;
+					position = stop;
+				}
+				case 3 -> {
+					for (int i = position; i < stop; i++) groupRuns[fill[runGroup[i]]++] = i;
+					position = stop;
+				}
+				default -> {
+					return true;
+				}
+			}
+
+			if (position < runCount) return false;
+			position = 0;
+			phase++;
+			switch (phase) {
+				case 2 -> {
+					groupSizes = Arrays.copyOf(groupSizes, groupCount);
+					groupRunStarts = new int[groupCount + 1];
+				}
+				case 3 -> {
+					for (int i = 0; i < groupCount; i++) groupRunStarts[i + 1] += groupRunStarts[i];
+					fill = Arrays.copyOf(groupRunStarts, groupCount);
+					groupRuns = new int[runCount];
+				}
+				case 4 -> fill = null;
+			}
+			return phase == 4;
+		}
+
+		/**
+		 * @return How many runs have been gone through so far, over all phases, up to {@link #totalWork()}
+		 */
+		long progress() {
+			return (long) phase * runCount + position;
+		}
+
+		/**
+		 * @return How many runs are gone through in total, as every phase goes through all runs once
+		 */
+		long totalWork() {
+			return 4L * runCount;
+		}
+
+		/**
+		 * 2. joins the runs that overlap with a run of the same owner in the previous column
+		 */
+		private void join(int stop) {
+			int column = position; // first run of the current column
+			while (column < stop) {
+				int x = runX[column];
+				int columnEnd = column;
+				while (columnEnd < runCount && runX[columnEnd] == x) columnEnd++;
+
+				if (column > 0 && runX[previousColumn] == x - 1) {
+					// both columns are sorted by y, so they can be walked side by side
+					int a = previousColumn, b = column;
+					while (a < column && b < columnEnd) {
+						boolean sameOwner = runOwner == null || runOwner[a] == runOwner[b];
+						if (sameOwner && runMaxY[a] >= runMinY[b] && runMaxY[b] >= runMinY[a]) union(parent, a, b);
+						if (runMaxY[a] < runMaxY[b]) a++;
+						else b++;
+					}
+				}
+
+				previousColumn = column;
+				column = columnEnd;
+			}
+			position = column;
+		}
+
+		/**
+		 * @throws IllegalStateException If the labeling is not done yet
+		 */
+		RunLabeling result() {
+			if (phase != 4) throw new IllegalStateException("The labeling is not done yet");
+			return new RunLabeling(this);
+		}
+	}
+
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]]; // path halving
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Always keeps the lower run as the root, so the root of a group is its first run
+	 */
+	private static void union(int[] parent, int a, int b) {
+		int rootA = find(parent, a);
+		int rootB = find(parent, b);
+		if (rootA < rootB) parent[rootB] = rootA;
+		else if (rootB < rootA) parent[rootA] = rootB;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+/**
+ * Traces the borders of a labeled group straight from its runs, without ever putting its cells into an array or a set.<br>
+ * Whether a cell is in the group is looked up in the runs with a binary search,
+ * and the sides of the runs are followed in one go, instead of one cell at a time.
+ * Every line starts at the bottom or the top of a run, so only those vertices are scanned.
+ * Only the vertices that the lines actually go through are remembered, so the memory grows with the amount of corners,
+ * not with the amount of cells, or the size of the bounding box.<br>
+ * The result is exactly the same as with the {@link EdgeTracer}.
+ */
+final class RunTracer extends BorderTracer {
+	private final RunLabeling labeling;
+	private final int group;
+	private final int runsStart, runsEnd;
+	/** The visited border edges, as a mask of directions per packed vertex */
+	private final LongByteMap visited = new LongByteMap(16);
+
+	RunTracer(RunLabeling labeling, int group) {
+		super(0, 0);
+		this.labeling = labeling;
+		this.group = group;
+		this.runsStart = labeling.groupRunsStart(group);
+		this.runsEnd = labeling.groupRunsEnd(group);
+	}
+
+	@Override
+	long scanCount() {
+		return 2L * (runsEnd - runsStart);
+	}
+
+	/**
+	 * The bottom and the top of every run, which are sorted first by x, then by y, as the runs are.
+	 * The lowest vertex of every line has a horizontal edge to its right, which is always the bottom or the top of a run.
+	 */
+	@Override
+	long scanVertex(long index) {
+		int run = labeling.groupRun(runsStart + (int) (index >>> 1));
+		int x = labeling.runX(run);
+		return (index & 1) == 0 ? CellKey.pack(x, labeling.runMinY(run)) : CellKey.pack(x, labeling.runMaxY(run) + 1);
+	}
+
+	@Override
+	int outgoing(int x, int y) {
+		int left = column(x - 1, y);
+		int right = column(x, y);
+		boolean bottomLeft = (left & 1) != 0;
+		boolean topLeft = (left & 2) != 0;
+		boolean bottomRight = (right & 1) != 0;
+		boolean topRight = (right & 2) != 0;
+
+		// the same as in the RasterTracer
+		int mask = 0;
+		if (topRight && !bottomRight) mask |= 1 << RIGHT;
+		if (topLeft && !topRight) mask |= 1 << UP;
+		if (bottomLeft && !topLeft) mask |= 1 << LEFT;
+		if (bottomRight && !bottomLeft) mask |= 1 << DOWN;
+		return mask & ~visited.get(CellKey.pack(x, y));
+	}
+
+	@Override
+	void visit(int x, int y, int direction) {
+		long vertex = CellKey.pack(x, y);
+		visited.put(vertex, (byte) (visited.get(vertex) | (1 << direction)));
+	}
+
+	/**
+	 * The horizontal edges are the bottoms and tops of runs, which are a single cell wide.
+	 * The vertical edges go along the side of a run, until that run ends, or a run in the next column starts
+	 */
+	@Override
+	int straightLength(int x, int y, int direction) {
+		switch (direction) {
+			case UP -> {
+				// along the right side of the run to the lower left of the vertex... which is the run to the upper left
+				int end = labeling.runMaxY(labeling.runAt(x - 1, y)) + 1;
+				int next = labeling.lastRunFrom(x, y) + 1;
+				if (next < labeling.runCount() && labeling.runX(next) == x) end = Math.min(end, labeling.runMinY(next));
+				return end - y;
+			}
+			case DOWN -> {
+				// along the left side of the run to the lower right of the vertex
+				int end = labeling.runMinY(labeling.runAt(x, y - 1));
+				int previous = labeling.lastRunFrom(x - 1, y - 1);
+				if (previous >= 0 && labeling.runX(previous) == x - 1) end = Math.max(end, labeling.runMaxY(previous) + 1);
+				return y - end;
+			}
+			default -> {
+				return 1;
+			}
+		}
+	}
+
+	/**
+	 * Looks up both cells of the column next to the vertex with a single search
+	 *
+	 * @return Bit 0 if the cell below the vertex is in the group, and bit 1 if the cell above it is
+	 */
+	private int column(int x, int y) {
+		int run = labeling.lastRunFrom(x, y);
+		if (run < 0 || labeling.runX(run) != x) return 0;
+		int mask = 0;
+		if (labeling.runMaxY(run) >= y && labeling.runGroup(run) == group) mask |= 2;
+		// the cell below is in the same run, or in the run before it
+		if (labeling.runMinY(run) == y && --run < 0) return mask;
+		if (labeling.runX(run) == x && labeling.runMaxY(run) >= y - 1 && labeling.runGroup(run) == group) mask |= 1;
+		return mask;
+	}
+}
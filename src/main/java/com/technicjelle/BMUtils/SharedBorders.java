@@ -0,0 +1,275 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+package com.technicjelle.BMUtils;
+
+import java.util.Arrays;
+
+/**
+ * Finds the borders of all groups of a labeling at once, in a single sweep over the runs, for labelings with many owners.<br>
+ * The border is cut into straight stretches, and every stretch is found only once, with the group on either side of it.
+ * A border between two owners is then followed by both groups from the same stretch, in opposite directions.<br>
+ * <br>
+ * The sweep goes along every vertical line between two columns, and walks the runs on both sides of it at the same time.
+ * A vertex is made wherever a run starts or ends on either side, and between two vertices the groups on both sides stay the same.
+ * Every side of a stretch remembers the vertex it ends at, and every run the vertices at its bottom and top,
+ * so the vertices never have to be searched for while tracing.
+ */
+final class SharedBorders {
+	private final RunLabeling labeling;
+
+	private int vertexCount = 0;
+	/** For every vertex, the side of the stretch that leaves it in each direction, plus one, or <code>0</code> if there is none */
+	private int[] leaving = new int[64];
+	/** The followed directions of every vertex, as a mask */
+	private byte[] visited;
+	/** The vertex at the bottom and at the top of every run, at the run times two, plus one for its top */
+	private final int[] runVertices;
+
+	// the stretches, with the group that follows it forwards (up or right), and the one that follows it backwards (down or left)
+	private int stretchCount = 0;
+	private int[] stretchLength = new int[16];
+	private int[] forwardGroup = new int[16];
+	private int[] backwardGroup = new int[16];
+	/** The vertex that every side of a stretch ends at, at the stretch times two, plus one for the backward side */
+	private int[] sideEnds = new int[32];
+
+	// the horizontal stretches of the column right of the previous line, in order, which are left of the current line,
+	// and the vertices on the previous line that they start from
+	private int[] previousHorizontals = new int[16];
+	private int[] previousHorizontalVertices = new int[16];
+	private int[] horizontals = new int[16];
+	private int[] horizontalVertices = new int[16];
+	private int horizontalCount = 0;
+
+	private SharedBorders(RunLabeling labeling) {
+		this.labeling = labeling;
+		this.runVertices = new int[2 * labeling.runCount()];
+	}
+
+	/**
+	 * @param labeling The labeling, usually with owners, see {@link RunLabeling.Collector#add(long, int)}.
+	 */
+	static SharedBorders find(RunLabeling labeling) {
+		SharedBorders borders = new SharedBorders(labeling);
+		borders.sweep();
+		borders.visited = new byte[borders.vertexCount];
+		return borders;
+	}
+
+	/**
+	 * The tracer for a single group. The groups can be traced in any order, but every group only once.
+	 */
+	BorderTracer tracer(int group) {
+		return new GroupTracer(group);
+	}
+
+	private void sweep() {
+		int runCount = labeling.runCount();
+		int next = 0;
+		// the runs of the column left of the line, if there is one
+		int leftStart = 0, leftEnd = 0;
+		while (next < runCount || leftStart < leftEnd) {
+			// the line right of the previous column, or else the line left of the next column
+			int x = leftStart < leftEnd ? labeling.runX(leftStart) + 1 : labeling.runX(next);
+			int rightStart = next, rightEnd = next;
+			while (rightEnd < runCount && labeling.runX(rightEnd) == x) rightEnd++;
+
+			sweepLine(x, leftStart, leftEnd, rightStart, rightEnd);
+
+			leftStart = rightStart;
+			leftEnd = rightEnd;
+			next = rightEnd;
+		}
+	}
+
+	/**
+	 * Walks the runs on both sides of a vertical line side by side, as the changes between the groups along it.<br>
+	 * Every run gives two changes: its group at its bottom, and no group at its top.
+	 * Runs that touch each other in the same column belong to different owners, so the group always changes at a change.
+	 */
+	private void sweepLine(int x, int leftStart, int leftEnd, int rightStart, int rightEnd) {
+		int left = 2 * leftStart, leftLimit = 2 * leftEnd;
+		int right = 2 * rightStart, rightLimit = 2 * rightEnd;
+		int leftGroup = -1, rightGroup = -1;
+		int previousVertex = -1, previousY = 0;
+		int previousHorizontal = 0;
+
+		int[] swap = previousHorizontals;
+		previousHorizontals = horizontals;
+		horizontals = swap;
+		swap = previousHorizontalVertices;
+		previousHorizontalVertices = horizontalVertices;
+		horizontalVertices = swap;
+		horizontalCount = 0;
+
+		while (left < leftLimit || right < rightLimit) {
+			int y = left < leftLimit && (right >= rightLimit || changeY(left) <= changeY(right)) ? changeY(left) : changeY(right);
+			int vertex = addVertex();
+			int belowLeft = leftGroup, belowRight = rightGroup;
+			while (left < leftLimit && changeY(left) == y) leftGroup = changeGroup(left++);
+			while (right < rightLimit && changeY(right) == y) {
+				runVertices[right] = vertex;
+				rightGroup = changeGroup(right++);
+			}
+
+			// the vertical stretch from the previous vertex up to this one
+			if (previousVertex >= 0 && belowLeft != belowRight) {
+				int stretch = addStretch(y - previousY, belowLeft, belowRight);
+				if (belowLeft >= 0) leave(previousVertex, BorderTracer.UP, stretch, false, vertex);
+				if (belowRight >= 0) leave(vertex, BorderTracer.DOWN, stretch, true, previousVertex);
+			}
+
+			// the edge between the cells left of the vertex, which was found on the previous line, from the other side
+			if (belowLeft != leftGroup) {
+				int stretch = previousHorizontals[previousHorizontal];
+				int start = previousHorizontalVertices[previousHorizontal++];
+				if (belowLeft >= 0) leave(vertex, BorderTracer.LEFT, stretch, true, start);
+				// the start of the forward side was on the previous line, so its end is only known now
+				sideEnds[stretch * 2] = vertex;
+			}
+
+			// the edge between the cells right of the vertex, which is left of the next line
+			if (belowRight != rightGroup) {
+				int stretch = addStretch(1, rightGroup, belowRight);
+				if (rightGroup >= 0) leave(vertex, BorderTracer.RIGHT, stretch, false, -1);
+				if (horizontalCount == horizontals.length) {
+					horizontals = Arrays.copyOf(horizontals, horizontalCount * 2);
+					horizontalVertices = Arrays.copyOf(horizontalVertices, horizontalCount * 2);
+				}
+				horizontals[horizontalCount] = stretch;
+				horizontalVertices[horizontalCount++] = vertex;
+			}
+
+			previousVertex = vertex;
+			previousY = y;
+		}
+	}
+
+	/**
+	 * @param change The run times two, plus one for its top
+	 * @return The y coordinate of the vertex where the change happens
+	 */
+	private int changeY(int change) {
+		int run = change >>> 1;
+		return (change & 1) == 0 ? labeling.runMinY(run) : labeling.runMaxY(run) + 1;
+	}
+
+	/**
+	 * @return The group from the vertex of the change upwards, or <code>-1</code> if there are no cells there
+	 */
+	private int changeGroup(int change) {
+		return (change & 1) == 0 ? labeling.runGroup(change >>> 1) : -1;
+	}
+
+	private int addVertex() {
+		if (vertexCount * 4 == leaving.length) leaving = Arrays.copyOf(leaving, vertexCount * 8);
+		return vertexCount++;
+	}
+
+	private int addStretch(int length, int forward, int backward) {
+		if (stretchCount == stretchLength.length) {
+			int capacity = stretchCount * 2;
+			stretchLength = Arrays.copyOf(stretchLength, capacity);
+			forwardGroup = Arrays.copyOf(forwardGroup, capacity);
+			backwardGroup = Arrays.copyOf(backwardGroup, capacity);
+			sideEnds = Arrays.copyOf(sideEnds, capacity * 2);
+		}
+		stretchLength[stretchCount] = length;
+		forwardGroup[stretchCount] = forward;
+		backwardGroup[stretchCount] = backward;
+		return stretchCount++;
+	}
+
+	/**
+	 * @param end The vertex that the side ends at, or <code>-1</code> if it is not known yet
+	 */
+	private void leave(int vertex, int direction, int stretch, boolean backward, int end) {
+		int side = stretch * 2 + (backward ? 1 : 0);
+		leaving[vertex * 4 + direction] = side + 1;
+		if (end >= 0) sideEnds[side] = end;
+	}
+
+	/**
+	 * Follows the border of a single group along the shared stretches, only taking the sides of the stretches that belong to it.
+	 * The scan is the same as in the {@link RunTracer}, so the result is exactly the same as well.
+	 */
+	private final class GroupTracer extends BorderTracer {
+		private final int group;
+		private final int runsStart, runsEnd;
+		// the vertex that the tracer is at, which it always gets to through the scan or through a stretch
+		private long currentVertex;
+		private int currentIndex = -1;
+
+		GroupTracer(int group) {
+			super(0, 0);
+			this.group = group;
+			this.runsStart = labeling.groupRunsStart(group);
+			this.runsEnd = labeling.groupRunsEnd(group);
+		}
+
+		@Override
+		long scanCount() {
+			return 2L * (runsEnd - runsStart);
+		}
+
+		@Override
+		long scanVertex(long index) {
+			int run = labeling.groupRun(runsStart + (int) (index >>> 1));
+			int x = labeling.runX(run);
+			long vertex = (index & 1) == 0 ? CellKey.pack(x, labeling.runMinY(run)) : CellKey.pack(x, labeling.runMaxY(run) + 1);
+			// the scan is only looked at between two lines, so this is where the next line starts
+			moveTo(vertex, runVertices[run * 2 + (int) (index & 1)]);
+			return vertex;
+		}
+
+		@Override
+		int outgoing(int x, int y) {
+			int vertex = vertexIndex(x, y);
+			int mask = 0;
+			for (int direction = 0; direction < 4; direction++) {
+				int side = leaving[vertex * 4 + direction] - 1;
+				if (side < 0 || ((visited[vertex] >>> direction) & 1) != 0) continue;
+				int stretch = side >>> 1;
+				if (((side & 1) == 0 ? forwardGroup[stretch] : backwardGroup[stretch]) == group) mask |= 1 << direction;
+			}
+			return mask;
+		}
+
+		@Override
+		void visit(int x, int y, int direction) {
+			int vertex = vertexIndex(x, y);
+			visited[vertex] |= (byte) (1 << direction);
+		}
+
+		/**
+		 * Goes along the whole stretch, so the tracer ends up at the vertex at the other end of it
+		 */
+		@Override
+		int straightLength(int x, int y, int direction) {
+			int side = leaving[vertexIndex(x, y) * 4 + direction] - 1;
+			int length = stretchLength[side >>> 1];
+			moveTo(CellKey.pack(x + DX[direction] * length, y + DY[direction] * length), sideEnds[side]);
+			return length;
+		}
+
+		private void moveTo(long vertex, int index) {
+			currentVertex = vertex;
+			currentIndex = index;
+		}
+
+		private int vertexIndex(int x, int y) {
+			if (currentIndex < 0 || currentVertex != CellKey.pack(x, y)) throw new IllegalStateException("Not at a known vertex"); // should never happen
+			return currentIndex;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.CellKey;
+import com.technicjelle.BMUtils.CellSet;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.CheeseDiff;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class CellSetTest {
+	private static Set<Long> randomCells(Random random) {
+		Set<Long> cells = new HashSet<>();
+		for (int i = 0; i < 3000; i++) {
+			cells.add(CellKey.pack(random.nextInt(200) - 100, random.nextInt(200) - 100));
+		}
+		return cells;
+	}
+
+	private static CellSet toCellSet(Set<Long> cells) {
+		return CellSet.of(cells.stream().mapToLong(Long::longValue).toArray());
+	}
+
+	private static long[] sorted(Set<Long> cells) {
+		return cells.stream()
+				.sorted(Comparator.<Long>comparingInt(CellKey::x).thenComparingInt(CellKey::y))
+				.mapToLong(Long::longValue)
+				.toArray();
+	}
+
+	@Test
+	public void addRemoveContains() {
+		CellSet set = new CellSet();
+		Assert.assertTrue(set.isEmpty());
+		Assert.assertTrue(set.add(-1, -65));
+		Assert.assertFalse(set.add(Vector2i.from(-1, -65)));
+		Assert.assertTrue(set.add(Integer.MAX_VALUE, Integer.MIN_VALUE));
+		Assert.assertTrue(set.contains(-1, -65));
+		Assert.assertFalse(set.contains(-1, -64));
+		Assert.assertEquals(2, set.size());
+
+		Assert.assertTrue(set.remove(-1, -65));
+		Assert.assertFalse(set.remove(-1, -65));
+		Assert.assertTrue(set.remove(Vector2i.from(Integer.MAX_VALUE, Integer.MIN_VALUE)));
+		Assert.assertTrue(set.isEmpty());
+	}
+
+	@Test
+	public void booleanOperations() {
+		Random random = new Random(20);
+		for (int round = 0; round < 10; round++) {
+			Set<Long> a = randomCells(random);
+			Set<Long> b = randomCells(random);
+			CellSet setA = toCellSet(a);
+			CellSet setB = toCellSet(b);
+
+			Set<Long> union = new HashSet<>(a);
+			union.addAll(b);
+			Set<Long> intersection = new HashSet<>(a);
+			intersection.retainAll(b);
+			Set<Long> difference = new HashSet<>(a);
+			difference.removeAll(b);
+			Set<Long> xor = new HashSet<>(union);
+			xor.removeAll(intersection);
+
+			Assert.assertArrayEquals(sorted(a), setA.toArray());
+			Assert.assertArrayEquals(sorted(union), setA.union(setB).toArray());
+			Assert.assertArrayEquals(sorted(intersection), setA.intersection(setB).toArray());
+			Assert.assertArrayEquals(sorted(difference), setA.difference(setB).toArray());
+			Assert.assertArrayEquals(sorted(xor), setA.xor(setB).toArray());
+			Assert.assertEquals(xor.size(), setA.xor(setB).size());
+
+			// the operations must not change their inputs
+			Assert.assertArrayEquals(sorted(a), setA.toArray());
+			Assert.assertArrayEquals(sorted(b), setB.toArray());
+		}
+		Assert.assertTrue(CellSet.of(Vector2i.from(1, 2)).xor(CellSet.of(Vector2i.from(1, 2))).isEmpty());
+	}
+
+	@Test
+	public void platterMatchesCells() {
+		Random random = new Random(200);
+		Set<Long> claimed = randomCells(random);
+		Set<Long> protectedCells = randomCells(random);
+		CellSet claimedButNotProtected = toCellSet(claimed).difference(toCellSet(protectedCells));
+
+		claimed.removeAll(protectedCells);
+		long[] expected = claimed.stream().mapToLong(Long::longValue).toArray();
+		Assert.assertTrue(CheeseDiff.compare(
+				Cheese.createPlatterFromCells(Vector2d.from(1, 1), expected),
+				claimedButNotProtected.createPlatterFromCells(Vector2d.from(1, 1))
+		).isEmpty());
+		Assert.assertTrue(CheeseDiff.compare(
+				Cheese.createPlatterFromCells(Vector2d.from(16, 16), expected),
+				claimedButNotProtected.createPlatterFromChunks()
+		).isEmpty());
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.technicjelle.BMUtils.Cheese;
+import de.bluecolored.bluemap.api.math.Shape;
+import org.junit.Assert;
+
+import java.util.Collection;
+
+/**
+ * Assertions for comparing cheeses that were created in different ways
+ */
+final class CheeseAssert {
+	private CheeseAssert() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Asserts that both platters have the same cheeses, in the same order, with the same outline, holes and area
+	 */
+	static void assertSamePlatter(Collection<Cheese> expected, Collection<Cheese> actual) {
+		assertSameCheeses(expected.toArray(Cheese[]::new), actual.toArray(Cheese[]::new));
+	}
+
+	/**
+	 * @see #assertSamePlatter(Collection, Collection)
+	 */
+	static void assertSameCheeses(Cheese[] expected, Cheese[] actual) {
+		Assert.assertEquals("Cheese amount", expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertSameCheese("Cheese " + i, expected[i], actual[i]);
+		}
+	}
+
+	/**
+	 * Asserts that both cheeses have the same outline and holes, point for point, and the same area
+	 */
+	static void assertSameCheese(String message, Cheese expected, Cheese actual) {
+		Assert.assertArrayEquals(message + " shape", expected.getShape().getPoints(), actual.getShape().getPoints());
+		Shape[] expectedHoles = expected.getHoles().toArray(Shape[]::new);
+		Shape[] actualHoles = actual.getHoles().toArray(Shape[]::new);
+		Assert.assertEquals(message + " holes amount", expectedHoles.length, actualHoles.length);
+		for (int h = 0; h < expectedHoles.length; h++) {
+			Assert.assertArrayEquals(message + " hole " + h, expectedHoles[h].getPoints(), actualHoles[h].getPoints());
+		}
+		Assert.assertEquals(message + " area", expected.getArea(), actual.getArea(), 0);
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.CellKey;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.CheeseCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+
+public class CheeseCacheTest {
+	@Test
+	public void sameCellsInAnyOrderHit() {
+		CheeseCache cache = new CheeseCache(4);
+		Collection<Cheese> first = cache.createPlatterFromChunks(Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(5, 5));
+		Collection<Cheese> second = cache.createPlatterFromChunks(Vector2i.from(5, 5), Vector2i.from(0, 0), Vector2i.from(1, 0));
+		Collection<Cheese> packed = cache.createPlatterFromChunks(new long[]{CellKey.pack(1, 0), CellKey.pack(5, 5), CellKey.pack(0, 0)});
+
+		Assert.assertSame(first, second);
+		Assert.assertSame(first, packed);
+		Assert.assertEquals(2, first.size());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void differentCellsOrCellSizeMiss() {
+		CheeseCache cache = new CheeseCache(4);
+		Collection<Cheese> chunks = cache.createPlatterFromChunks(Vector2i.from(0, 0));
+		Collection<Cheese> otherChunks = cache.createPlatterFromChunks(Vector2i.from(0, 1));
+		Collection<Cheese> cells = cache.createPlatterFromCells(Vector2d.from(1, 1), Vector2i.from(0, 0));
+
+		Assert.assertNotSame(chunks, otherChunks);
+		Assert.assertNotSame(chunks, cells);
+		Assert.assertEquals(3, cache.getMissCount());
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(3, cache.size());
+	}
+
+	@Test
+	public void leastRecentlyUsedIsEvicted() {
+		CheeseCache cache = new CheeseCache(2);
+		Collection<Cheese> a = cache.createPlatterFromChunks(Vector2i.from(0, 0));
+		Collection<Cheese> b = cache.createPlatterFromChunks(Vector2i.from(1, 1));
+		Assert.assertSame(a, cache.createPlatterFromChunks(Vector2i.from(0, 0))); // a is now used more recently than b
+		cache.createPlatterFromChunks(Vector2i.from(2, 2)); // evicts b
+
+		Assert.assertEquals(1, cache.getEvictionCount());
+		Assert.assertEquals(2, cache.size());
+		Assert.assertSame(a, cache.createPlatterFromChunks(Vector2i.from(0, 0)));
+		Assert.assertNotSame(b, cache.createPlatterFromChunks(Vector2i.from(1, 1)));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void cachedPlatterCanNotBeModified() {
+		CheeseCache cache = new CheeseCache(1);
+		cache.createPlatterFromChunks(Vector2i.from(0, 0)).clear();
+	}
+}
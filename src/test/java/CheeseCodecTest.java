@@ -0,0 +1,132 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.technicjelle.BMUtils.CellKey;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.CheeseCodec;
+import de.bluecolored.bluemap.api.math.Shape;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class CheeseCodecTest {
+	private static long[] randomCells(Random random) {
+		long[] cells = new long[2000];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = CellKey.pack(random.nextInt(80) - 40, random.nextInt(80) - 40);
+		}
+		return cells;
+	}
+
+	private static byte[] write(Vector2d cellSize, long[] cells, Collection<Cheese> platter) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CheeseCodec.write(out, cellSize, cells, platter);
+		return out.toByteArray();
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		long[] cells = randomCells(new Random(23));
+		Vector2d cellSize = Vector2d.from(16, 16);
+		Collection<Cheese> platter = Cheese.createPlatterFromCells(cellSize, cells);
+		byte[] bytes = write(cellSize, cells, platter);
+
+		int points = platter.stream().mapToInt(Cheese::getVertexCount).sum();
+		Assert.assertTrue("expected about two bytes per point", bytes.length < 64 + points * 3);
+
+		// the order of the cells doesn't matter
+		long[] reversed = new long[cells.length];
+		for (int i = 0; i < cells.length; i++) reversed[i] = cells[cells.length - 1 - i];
+		CheeseAssert.assertSamePlatter(platter, CheeseCodec.read(new ByteArrayInputStream(bytes), cellSize, reversed));
+		CheeseAssert.assertSamePlatter(platter, CheeseCodec.read(new ByteArrayInputStream(bytes)));
+	}
+
+	@Test
+	public void differentCells() throws IOException {
+		long[] cells = randomCells(new Random(230));
+		Vector2d cellSize = Vector2d.from(1, 1);
+		byte[] bytes = write(cellSize, cells, Cheese.createPlatterFromCells(cellSize, cells));
+
+		Assert.assertNull(CheeseCodec.read(new ByteArrayInputStream(bytes), Vector2d.from(2, 2), cells));
+		cells[0] = CellKey.pack(1000, 1000);
+		Assert.assertNull(CheeseCodec.read(new ByteArrayInputStream(bytes), cellSize, cells));
+	}
+
+	@Test
+	public void freeCoordinates() throws IOException {
+		Cheese cheese = new Cheese(new Shape(Vector2d.from(0.1, 0.2), Vector2d.from(5.5, 0), Vector2d.from(3, 7.25)));
+		byte[] bytes = write(Vector2d.from(1, 1), new long[0], List.of(cheese));
+		CheeseAssert.assertSamePlatter(List.of(cheese), CheeseCodec.read(new ByteArrayInputStream(bytes), Vector2d.from(1, 1), new long[0]));
+	}
+
+	@Test(expected = IOException.class)
+	public void notAPlatter() throws IOException {
+		CheeseCodec.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+	}
+
+	@Test
+	public void loadOrCreate() throws IOException {
+		Path file = Files.createTempFile("cheese", ".bin");
+		try {
+			long[] cells = randomCells(new Random(2300));
+			Vector2d cellSize = Vector2d.from(16, 16);
+			Files.write(file, new byte[]{1, 2, 3}); // broken, so it gets replaced
+
+			Collection<Cheese> created = CheeseCodec.loadOrCreatePlatter(file, cellSize, cells);
+			CheeseAssert.assertSamePlatter(Cheese.createPlatterFromCells(cellSize, cells), created);
+			CheeseAssert.assertSamePlatter(created, CheeseCodec.loadOrCreatePlatter(file, cellSize, cells));
+
+			cells[0] = CellKey.pack(1000, 1000);
+			CheeseAssert.assertSamePlatter(Cheese.createPlatterFromCells(cellSize, cells), CheeseCodec.loadOrCreatePlatter(file, cellSize, cells));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void loadOrCreateTruncated() throws IOException {
+		Path folder = Files.createTempDirectory("cheese");
+		Path file = folder.resolve("platter.bin");
+		try {
+			long[] cells = randomCells(new Random(2301));
+			Vector2d cellSize = Vector2d.from(16, 16);
+			Collection<Cheese> created = CheeseCodec.loadOrCreatePlatter(file, cellSize, cells);
+
+			// cut off halfway through the cheeses, and with garbage after the platter
+			byte[] bytes = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+			CheeseAssert.assertSamePlatter(created, CheeseCodec.loadOrCreatePlatter(file, cellSize, cells));
+			Files.write(file, Arrays.copyOf(bytes, bytes.length + 1));
+			CheeseAssert.assertSamePlatter(created, CheeseCodec.loadOrCreatePlatter(file, cellSize, cells));
+			Assert.assertArrayEquals(bytes, Files.readAllBytes(file));
+
+			// no temporary files are left behind
+			try (Stream<Path> files = Files.list(folder)) {
+				Assert.assertEquals(List.of(file), files.toList());
+			}
+		} finally {
+			Files.deleteIfExists(file);
+			Files.deleteIfExists(folder);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.CheeseDiff;
+import de.bluecolored.bluemap.api.math.Shape;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class CheeseDiffTest {
+	@Test
+	public void samePlatterIsEmpty() {
+		Collection<Cheese> previous = Cheese.createPlatterFromChunks(Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(5, 5));
+		Collection<Cheese> current = Cheese.createPlatterFromChunks(Vector2i.from(5, 5), Vector2i.from(1, 0), Vector2i.from(0, 0));
+
+		CheeseDiff diff = CheeseDiff.compare(previous, current);
+		Assert.assertTrue(diff.isEmpty());
+	}
+
+	@Test
+	public void addedRemovedAndChanged() {
+		Collection<Cheese> previous = Cheese.createPlatterFromChunks(
+				Vector2i.from(0, 0), Vector2i.from(1, 0), // stays the same
+				Vector2i.from(5, 5), // grows to the upper right, so keeps its key
+				Vector2i.from(10, 10) // disappears
+		);
+		Collection<Cheese> current = Cheese.createPlatterFromChunks(
+				Vector2i.from(0, 0), Vector2i.from(1, 0),
+				Vector2i.from(5, 5), Vector2i.from(6, 5),
+				Vector2i.from(-3, 8) // new
+		);
+
+		CheeseDiff diff = CheeseDiff.compare(previous, current);
+		Assert.assertFalse(diff.isEmpty());
+		Assert.assertEquals(List.of("cheese_-48_128"), List.copyOf(diff.getAdded().keySet()));
+		Assert.assertEquals(List.of("cheese_160_160"), List.copyOf(diff.getRemoved().keySet()));
+		Assert.assertEquals(List.of("cheese_80_80"), List.copyOf(diff.getChanged().keySet()));
+		Assert.assertEquals(4, diff.getChanged().get("cheese_80_80").getShape().getPointCount());
+		Assert.assertEquals(112, diff.getChanged().get("cheese_80_80").getShape().getMax().getX(), 0);
+	}
+
+	@Test
+	public void duplicateKeysGetNumbered() {
+		Cheese square = new Cheese(Shape.createRect(0, 0, 10, 10));
+		Cheese triangle = new Cheese(new Shape(Vector2d.from(0, 0), Vector2d.from(5, 10), Vector2d.from(-5, 10)));
+		Map<String, Cheese> keys = CheeseDiff.createKeys(List.of(square, triangle, square));
+
+		Assert.assertEquals(List.of("cheese_0_0", "cheese_-5_10", "cheese_0_0_2"), List.copyOf(keys.keySet()));
+		Assert.assertSame(square, keys.get("cheese_0_0_2"));
+	}
+}
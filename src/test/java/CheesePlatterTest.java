@@ -0,0 +1,211 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.CheesePlatter;
+import de.bluecolored.bluemap.api.math.Shape;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class CheesePlatterTest {
+	@Test
+	public void emptyPlatter() {
+		CheesePlatter platter = new CheesePlatter();
+		Assert.assertTrue(platter.getCheeses().isEmpty());
+		Assert.assertTrue(platter.update().isEmpty());
+	}
+
+	@Test
+	public void addingCellsMatchesCreatePlatter() {
+		// ##.##
+		Vector2i[] chunks = {
+				Vector2i.from(0, 0),
+				Vector2i.from(1, 0),
+				Vector2i.from(3, 0),
+				Vector2i.from(4, 0)
+		};
+		CheesePlatter platter = new CheesePlatter();
+		platter.addCells(chunks);
+
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertEquals(2, changes.getAdded().size());
+		Assert.assertTrue(changes.getRemoved().isEmpty());
+		CheeseAssert.assertSameCheeses(Cheese.createPlatterFromChunks(chunks).toArray(Cheese[]::new), platter.getCheeses().toArray(Cheese[]::new));
+	}
+
+	@Test
+	public void addingCellMergesCheeses() {
+		// ##.## -> #####
+		CheesePlatter platter = new CheesePlatter();
+		platter.addCells(Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(3, 0), Vector2i.from(4, 0));
+		platter.update();
+
+		Assert.assertTrue(platter.addCell(2, 0));
+		Assert.assertFalse(platter.addCell(2, 0));
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertEquals(1, changes.getAdded().size());
+		Assert.assertEquals(2, changes.getRemoved().size());
+
+		Cheese merged = changes.getAdded().iterator().next();
+		Assert.assertArrayEquals(new Vector2d[]{
+				Vector2d.from(80, 0),  //top right
+				Vector2d.from(80, 16), //bottom right
+				Vector2d.from(0, 16),  //bottom left
+				Vector2d.from(0, 0)    //top left
+		}, merged.getShape().getPoints());
+	}
+
+	@Test
+	public void removingCellSplitsCheese() {
+		// ##### -> ##.##
+		CheesePlatter platter = new CheesePlatter();
+		for (int x = 0; x < 5; x++) {
+			platter.addCell(x, 0);
+		}
+		Cheese whole = platter.update().getAdded().iterator().next();
+
+		Assert.assertTrue(platter.removeCell(2, 0));
+		Assert.assertFalse(platter.removeCell(2, 0));
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertEquals(2, changes.getAdded().size());
+		Assert.assertEquals(1, changes.getRemoved().size());
+		Assert.assertSame(whole, changes.getRemoved().iterator().next());
+		Assert.assertEquals(2, platter.getCheeses().size());
+	}
+
+	@Test
+	public void untouchedCheesesAreKept() {
+		// #...#  -> #...##
+		CheesePlatter platter = new CheesePlatter();
+		platter.addCells(Vector2i.from(0, 0), Vector2i.from(4, 0));
+		platter.update();
+
+		platter.addCell(5, 0);
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertEquals(1, changes.getAdded().size());
+		Assert.assertEquals(1, changes.getRemoved().size());
+		Assert.assertEquals(2, platter.getCheeses().size());
+	}
+
+	@Test
+	public void removingLastCellRemovesCheese() {
+		CheesePlatter platter = new CheesePlatter(Vector2d.from(1, 1));
+		platter.addCell(7, 7);
+		Cheese cheese = platter.update().getAdded().iterator().next();
+
+		platter.removeCell(7, 7);
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertTrue(changes.getAdded().isEmpty());
+		Assert.assertSame(cheese, changes.getRemoved().iterator().next());
+		Assert.assertTrue(platter.getCheeses().isEmpty());
+		Assert.assertEquals(0, platter.getCellCount());
+	}
+
+	@Test
+	public void editsBetweenUpdatesAreCombined() {
+		// a cheese that is added and removed again before an update is never reported
+		CheesePlatter platter = new CheesePlatter();
+		platter.addCell(0, 0);
+		platter.getCheeses();
+		platter.removeCell(0, 0);
+		Assert.assertTrue(platter.update().isEmpty());
+	}
+
+	@Test
+	public void cheeseTouchingAtCornerIsKept() {
+		// .#    .##
+		// #. -> #..
+		CheesePlatter platter = new CheesePlatter(Vector2d.from(1, 1));
+		platter.addCells(Vector2i.from(0, 0), Vector2i.from(1, 1));
+		platter.update();
+
+		platter.addCell(2, 1);
+		CheesePlatter.Changes changes = platter.update();
+		Assert.assertEquals(1, changes.getAdded().size());
+		Assert.assertEquals(1, changes.getRemoved().size());
+	}
+
+	@Test
+	public void closingPocketJoinsHoleAtCorner() {
+		// ##.##    #####
+		// ##.##    ##.##
+		// ##.## -> ##.##
+		// #.###    #.###
+		// #####    #####
+		// the pocket only touches the hole at a corner, far away from the added cell
+		Vector2d cellSize = Vector2d.from(1, 1);
+		CheesePlatter platter = new CheesePlatter(cellSize);
+		Set<Vector2i> cells = new HashSet<>();
+		for (int x = 0; x < 5; x++) {
+			for (int y = 0; y < 5; y++) {
+				if ((x == 1 && y == 1) || (x == 2 && y >= 2)) continue;
+				platter.addCell(x, y);
+				cells.add(Vector2i.from(x, y));
+			}
+		}
+		platter.update();
+
+		platter.addCell(2, 4);
+		cells.add(Vector2i.from(2, 4));
+		platter.update();
+		Collection<Cheese> expected = Cheese.createPlatterFromCells(cellSize, cells.toArray(Vector2i[]::new));
+		CheeseAssert.assertSamePlatter(expected, platter.getCheeses());
+		Assert.assertEquals(1, platter.getCheeses().iterator().next().getHoles().size());
+	}
+
+	@Test
+	public void randomEditsMatchCreatePlatter() {
+		Vector2d cellSize = Vector2d.from(1, 1);
+		Random random = new Random(3);
+		for (int round = 0; round < 50; round++) {
+			CheesePlatter platter = new CheesePlatter(cellSize);
+			Set<Vector2i> cells = new HashSet<>();
+			int size = 4 + random.nextInt(16);
+			double addChance = 0.3 + 0.6 * random.nextDouble();
+			for (int edit = 0; edit < 300; edit++) {
+				Vector2i cell = Vector2i.from(random.nextInt(size), random.nextInt(size));
+				if (random.nextDouble() < addChance) Assert.assertEquals(cells.add(cell), platter.addCell(cell));
+				else Assert.assertEquals(cells.remove(cell), platter.removeCell(cell));
+				if (random.nextInt(8) != 0) continue;
+
+				platter.update();
+				Collection<Cheese> expected = Cheese.createPlatterFromCells(cellSize, cells.toArray(Vector2i[]::new));
+				CheeseAssert.assertSamePlatter(byLowestCorner(expected), byLowestCorner(platter.getCheeses()));
+			}
+		}
+	}
+
+	/**
+	 * Sorts the cheeses by the last point of their outline, which is their lowest corner
+	 */
+	private static List<Cheese> byLowestCorner(Collection<Cheese> cheeses) {
+		List<Cheese> sorted = new ArrayList<>(cheeses);
+		sorted.sort(Comparator.<Cheese>comparingDouble(cheese -> lowestCorner(cheese).getX())
+				.thenComparingDouble(cheese -> lowestCorner(cheese).getY()));
+		return sorted;
+	}
+
+	private static Vector2d lowestCorner(Cheese cheese) {
+		Vector2d[] points = cheese.getShape().getPoints();
+		return points[points.length - 1];
+	}
+}
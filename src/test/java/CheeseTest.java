@@ -12,11 +12,27 @@
 
 import com.flowpowered.math.vector.Vector2d;
 import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.CellKey;
 import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.NestedCheese;
 import de.bluecolored.bluemap.api.math.Shape;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
 public class CheeseTest {
 	/*@Test
 	public void isDelicious() {
@@ -284,6 +300,37 @@ public class CheeseTest {
 		// But I will not test for that, as it's undefined behaviour
 	}
 
+	@Test
+	public void singleFramesDenseAndSparse() {
+		// a 5x5 frame fills most of its bounding box, a 20x20 frame doesn't,
+		// so they are traced differently, but should still give the same kind of result
+		for (int size : new int[]{5, 20}) {
+			List<Vector2i> chunks = new ArrayList<>();
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					if (x == 0 || y == 0 || x == size - 1 || y == size - 1) chunks.add(Vector2i.from(x, y));
+				}
+			}
+
+			Cheese cheese = Cheese.createSingleFromChunks(chunks.toArray(Vector2i[]::new));
+			int outer = size * 16;
+			int inner = (size - 1) * 16;
+			compareCheese(cheese, new Cheese(new Shape(
+					Vector2d.from(outer, 0),     //top right
+					Vector2d.from(outer, outer), //bottom right
+					Vector2d.from(0, outer),     //bottom left
+					Vector2d.from(0, 0)          //top left
+			),
+					new Shape(
+							Vector2d.from(16, inner),    //bottom left
+							Vector2d.from(inner, inner), //bottom right
+							Vector2d.from(inner, 16),    //top right
+							Vector2d.from(16, 16)        //top left
+					)
+			));
+		}
+	}
+
 	//endregion Chunks
 
 	//region Cells
@@ -719,5 +766,597 @@ public class CheeseTest {
 		));
 	}
 
+	@Test
+	public void cheesePlatterOrderIndependentOfInput() {
+		// #..#
+		// #..#
+		// with negative coordinates, in two different orders
+		Vector2i[] chunks = new Vector2i[]{
+				Vector2i.from(-2, -1),
+				Vector2i.from(-2, 0),
+				Vector2i.from(1, -1),
+				Vector2i.from(1, 0)
+		};
+		Vector2i[] reversed = new Vector2i[]{
+				chunks[3],
+				chunks[2],
+				chunks[1],
+				chunks[0]
+		};
+
+		Cheese[] platter = Cheese.createPlatterFromChunks(chunks).toArray(Cheese[]::new);
+		Cheese[] reversedPlatter = Cheese.createPlatterFromChunks(reversed).toArray(Cheese[]::new);
+		Assert.assertEquals(2, platter.length);
+		Assert.assertEquals(2, reversedPlatter.length);
+
+		Cheese left = new Cheese(new Shape(
+				Vector2d.from(-16, -16), //top right
+				Vector2d.from(-16, 16),  //bottom right
+				Vector2d.from(-32, 16),  //bottom left
+				Vector2d.from(-32, -16)  //top left
+		));
+		Cheese right = new Cheese(new Shape(
+				Vector2d.from(32, -16), //top right
+				Vector2d.from(32, 16),  //bottom right
+				Vector2d.from(16, 16),  //bottom left
+				Vector2d.from(16, -16)  //top left
+		));
+
+		compareCheese(platter[0], left);
+		compareCheese(platter[1], right);
+		compareCheese(reversedPlatter[0], left);
+		compareCheese(reversedPlatter[1], right);
+	}
+
+	@Test
+	public void cheesePlatterManyCells() {
+		// two separate 100x100 squares of 1x1 cells, with a 1x1 hole in the second one
+		List<Vector2i> cells = new ArrayList<>();
+		for (int x = 0; x < 100; x++) {
+			for (int y = 0; y < 100; y++) {
+				cells.add(Vector2i.from(x, y));
+				if (x != 50 || y != 50) cells.add(Vector2i.from(x + 101, y));
+			}
+		}
+
+		Cheese[] platter = Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new)).toArray(Cheese[]::new);
+		Assert.assertEquals(2, platter.length);
+
+		compareCheese(platter[0], new Cheese(new Shape(
+				Vector2d.from(100, 0),   //top right
+				Vector2d.from(100, 100), //bottom right
+				Vector2d.from(0, 100),   //bottom left
+				Vector2d.from(0, 0)      //top left
+		)));
+
+		compareCheese(platter[1], new Cheese(new Shape(
+				Vector2d.from(201, 0),   //top right
+				Vector2d.from(201, 100), //bottom right
+				Vector2d.from(101, 100), //bottom left
+				Vector2d.from(101, 0)    //top left
+		),
+				new Shape(
+						Vector2d.from(151, 51), //bottom left
+						Vector2d.from(152, 51), //bottom right
+						Vector2d.from(152, 50), //top right
+						Vector2d.from(151, 50)  //top left
+				)
+		));
+	}
+
+	@Test
+	public void cheesePlatterFromOtherInputs() {
+		// ##..#
+		// #..##
+		Vector2i[] chunks = {
+				Vector2i.from(0, 0),
+				Vector2i.from(1, 0),
+				Vector2i.from(0, 1),
+				Vector2i.from(4, 0),
+				Vector2i.from(3, 1),
+				Vector2i.from(4, 1)
+		};
+		long[] packed = new long[chunks.length];
+		int[] xs = new int[chunks.length];
+		int[] ys = new int[chunks.length];
+		for (int i = 0; i < chunks.length; i++) {
+			packed[i] = CellKey.pack(chunks[i]);
+			xs[i] = chunks[i].getX();
+			ys[i] = chunks[i].getY();
+		}
+		long[] packedCopy = packed.clone();
+
+		Vector2d cellSize = Vector2d.from(16, 16);
+		Cheese[] expected = Cheese.createPlatterFromChunks(chunks).toArray(Cheese[]::new);
+		List<Cheese[]> platters = List.of(
+				Cheese.createPlatterFromChunks(packed).toArray(Cheese[]::new),
+				Cheese.createPlatterFromChunks(List.of(chunks)).toArray(Cheese[]::new),
+				Cheese.createPlatterFromCells(cellSize, LongStream.of(packed)).toArray(Cheese[]::new),
+				Cheese.createPlatterFromCells(cellSize, xs, ys).toArray(Cheese[]::new)
+		);
+		for (Cheese[] platter : platters) {
+			Assert.assertEquals(expected.length, platter.length);
+			for (int i = 0; i < expected.length; i++) {
+				compareCheese(platter[i], expected[i]);
+			}
+		}
+
+		// the input array should not have been sorted
+		Assert.assertArrayEquals(packedCopy, packed);
+
+		compareCheese(Cheese.createSingleFromChunks(new long[]{packed[0], packed[1], packed[2]}), expected[0]);
+		compareCheese(Cheese.createSingleFromChunks(List.of(chunks[3], chunks[4], chunks[5])), expected[1]);
+	}
+
+	@Test
+	public void cheesePlatterParallelSameAsSequential() {
+		// 100 separate 7x7 squares, in a 10x10 grid, enough to not take the sequential shortcut
+		List<Vector2i> chunks = new ArrayList<>();
+		for (int square = 0; square < 100; square++) {
+			for (int x = 0; x < 7; x++) {
+				for (int y = 0; y < 7; y++) {
+					chunks.add(Vector2i.from((square % 10) * 8 + x, (square / 10) * 8 + y));
+				}
+			}
+		}
+		Vector2i[] chunkArray = chunks.toArray(Vector2i[]::new);
+
+		Cheese[] sequential = Cheese.createPlatterFromChunks(chunkArray).toArray(Cheese[]::new);
+		Cheese[] parallel = Cheese.createPlatterFromChunksParallel(chunkArray).toArray(Cheese[]::new);
+		Cheese[] inline = Cheese.createPlatterFromCellsParallel(Vector2d.from(16, 16), Runnable::run, chunkArray).toArray(Cheese[]::new);
+		Assert.assertEquals(100, sequential.length);
+		Assert.assertEquals(100, parallel.length);
+		Assert.assertEquals(100, inline.length);
+		for (int i = 0; i < sequential.length; i++) {
+			compareCheese(parallel[i], sequential[i]);
+			compareCheese(inline[i], sequential[i]);
+		}
+	}
+
+	@Test
+	public void cheesePlatterSparseSameAsSingle() {
+		// thin shapes fill far less than a quarter of their bounding box, so the platter traces them from their runs
+		Random random = new Random(11);
+		int tracedCells = 0, sparseCells = 0;
+		for (int round = 0; round < 40; round++) {
+			Set<Long> cells = new HashSet<>();
+			for (int shape = 0; shape < 6; shape++) {
+				int x = random.nextInt(200);
+				int y = random.nextInt(200);
+				switch (random.nextInt(5)) {
+					case 0 -> addFrame(cells, x, y, 16 + random.nextInt(40), 16 + random.nextInt(40));
+					case 1 -> addSpiral(cells, x, y, 20 + random.nextInt(40), 3 + random.nextInt(3));
+					case 2 -> addDiagonal(cells, x, y, 8 + random.nextInt(40), random.nextBoolean());
+					case 3 -> addComb(cells, x, y, 2 + random.nextInt(10), 8 + random.nextInt(20), 8 + random.nextInt(4));
+					default -> addCornerHoles(cells, x, y, 3 + random.nextInt(6), 32 + random.nextInt(30));
+				}
+			}
+
+			long[] keys = cells.stream().mapToLong(Long::longValue).sorted().toArray();
+			List<long[]> components = connectedComponents(keys, cells);
+			Cheese[] expected = new Cheese[components.size()];
+			for (int i = 0; i < expected.length; i++) {
+				long[] component = components.get(i);
+				expected[i] = Cheese.createSingleFromCells(Vector2d.from(1, 1), component);
+				if (component.length == 1) continue;
+				tracedCells += component.length;
+				if (fillRatio(component) < 0.25) sparseCells += component.length;
+			}
+
+			Cheese[] platter = Cheese.createPlatterFromCells(Vector2d.from(1, 1), keys).toArray(Cheese[]::new);
+			CheeseAssert.assertSameCheeses(expected, platter);
+		}
+		Assert.assertTrue("The shapes should be mostly sparse", sparseCells * 10 >= tracedCells * 9);
+	}
+
+	/**
+	 * A one cell wide rectangle outline
+	 */
+	private static void addFrame(Set<Long> cells, int x, int y, int width, int height) {
+		for (int i = 0; i < width; i++) {
+			cells.add(CellKey.pack(x + i, y));
+			cells.add(CellKey.pack(x + i, y + height - 1));
+		}
+		for (int j = 0; j < height; j++) {
+			cells.add(CellKey.pack(x, y + j));
+			cells.add(CellKey.pack(x + width - 1, y + j));
+		}
+	}
+
+	/**
+	 * A one cell wide square spiral, winding inwards, with corridors of {@code gap} cells between its walls
+	 */
+	private static void addSpiral(Set<Long> cells, int x, int y, int size, int gap) {
+		int[][] directions = {{1, 0}, {0, 1}, {-1, 0}, {0, -1}};
+		int length = size;
+		for (int turn = 0; length > 0; turn++) {
+			int[] direction = directions[turn % 4];
+			for (int i = 0; i < length; i++) {
+				cells.add(CellKey.pack(x, y));
+				x += direction[0];
+				y += direction[1];
+			}
+			// the walls close in after every second turn
+			if (turn >= 2 && turn % 2 == 0) length -= gap + 1;
+		}
+	}
+
+	/**
+	 * Cells that only touch at their corners, or a one cell wide staircase that connects them
+	 */
+	private static void addDiagonal(Set<Long> cells, int x, int y, int length, boolean staircase) {
+		for (int i = 0; i < length; i++) {
+			cells.add(CellKey.pack(x + i, y + i));
+			if (staircase) cells.add(CellKey.pack(x + i + 1, y + i));
+		}
+	}
+
+	/**
+	 * A one cell wide spine with one cell wide teeth sticking up from it
+	 */
+	private static void addComb(Set<Long> cells, int x, int y, int teeth, int toothLength, int spacing) {
+		for (int i = 0; i < teeth * spacing; i++) {
+			cells.add(CellKey.pack(x + i, y));
+			if (i % spacing != 0) continue;
+			for (int j = 1; j <= toothLength; j++) {
+				cells.add(CellKey.pack(x + i, y + j));
+			}
+		}
+	}
+
+	/**
+	 * A frame with a small checkerboard of holes inside, that touch each other only at their corners,
+	 * hung from the frame by a one cell wide bar
+	 */
+	private static void addCornerHoles(Set<Long> cells, int x, int y, int checkers, int frameSize) {
+		addFrame(cells, x, y, frameSize, frameSize);
+		int bx = x + 2;
+		int by = y + 2;
+		for (int i = 0; i <= checkers + 1; i++) {
+			for (int j = 0; j <= checkers + 1; j++) {
+				boolean border = i == 0 || j == 0 || i == checkers + 1 || j == checkers + 1;
+				if (border || (i + j) % 2 == 0) cells.add(CellKey.pack(bx + i, by + j));
+			}
+		}
+		cells.add(CellKey.pack(x + 1, by));
+	}
+
+	/**
+	 * Splits sorted cells into their edge-connected areas, in the order of their lowest cell
+	 */
+	private static List<long[]> connectedComponents(long[] sortedKeys, Set<Long> cells) {
+		Set<Long> seen = new HashSet<>();
+		List<long[]> components = new ArrayList<>();
+		for (long start : sortedKeys) {
+			if (!seen.add(start)) continue;
+			List<Long> component = new ArrayList<>();
+			ArrayDeque<Long> queue = new ArrayDeque<>();
+			queue.add(start);
+			while (!queue.isEmpty()) {
+				long key = queue.poll();
+				component.add(key);
+				int x = CellKey.x(key);
+				int y = CellKey.y(key);
+				for (long neighbour : new long[]{CellKey.pack(x + 1, y), CellKey.pack(x - 1, y), CellKey.pack(x, y + 1), CellKey.pack(x, y - 1)}) {
+					if (cells.contains(neighbour) && seen.add(neighbour)) queue.add(neighbour);
+				}
+			}
+			components.add(component.stream().mapToLong(Long::longValue).toArray());
+		}
+		return components;
+	}
+
+	private static double fillRatio(long[] keys) {
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		for (long key : keys) {
+			minX = Math.min(minX, CellKey.x(key));
+			minY = Math.min(minY, CellKey.y(key));
+			maxX = Math.max(maxX, CellKey.x(key));
+			maxY = Math.max(maxY, CellKey.y(key));
+		}
+		return keys.length / ((double) (maxX - minX + 1) * (maxY - minY + 1));
+	}
+
 	//endregion Platter
+
+	//region Simplify
+
+	@Test
+	public void simplifyStaircase() {
+		// a triangle of 1x1 cells, with a staircase on its diagonal side
+		List<Vector2i> cells = new ArrayList<>();
+		for (int x = 0; x < 20; x++) {
+			for (int y = 0; x + y < 20; y++) {
+				cells.add(Vector2i.from(x, y));
+			}
+		}
+		Cheese cheese = Cheese.createSingleFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new));
+		Assert.assertEquals(42, cheese.getShape().getPointCount());
+
+		Assert.assertSame(cheese, cheese.simplify(0));
+
+		Cheese simplified = cheese.simplify(1);
+		Assert.assertTrue(simplified.getShape().getPointCount() < 10);
+		List<Vector2d> original = List.of(cheese.getShape().getPoints());
+		for (Vector2d point : simplified.getShape().getPoints()) {
+			Assert.assertTrue("Simplified points are a subset of the original ones", original.contains(point));
+		}
+	}
+
+	@Test
+	public void simplifyKeepsHoleInside() {
+		// a 10x10 square with a hole close to a corner
+		// simplifying the square with a huge tolerance would cut that corner off, taking the hole with it
+		List<Vector2i> cells = new ArrayList<>();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				if (x != 1 || y != 1) cells.add(Vector2i.from(x, y));
+			}
+		}
+		Cheese cheese = Cheese.createSingleFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new));
+		Cheese simplified = cheese.simplify(100);
+
+		Assert.assertArrayEquals(cheese.getShape().getPoints(), simplified.getShape().getPoints());
+		Assert.assertEquals(1, simplified.getHoles().size());
+		Assert.assertEquals(3, simplified.getHoles().iterator().next().getPointCount());
+	}
+
+	//endregion Simplify
+
+	//region Coordinates
+
+	@Test
+	public void rawCoordinatesMatchShapes() {
+		Shape outline = Shape.createRect(0, 0, 10, 10);
+		Shape hole1 = Shape.createRect(1, 1, 2, 2);
+		Shape hole2 = new Shape(Vector2d.from(5, 5), Vector2d.from(6, 5), Vector2d.from(6, 6));
+		Cheese cheese = new Cheese(outline, hole1, hole2);
+
+		Assert.assertEquals(2, cheese.getHoleCount());
+		Assert.assertEquals(3, cheese.getLineCount());
+		Assert.assertArrayEquals(outline.getPoints(), cheese.getShape().getPoints());
+		Shape[] holes = cheese.getHoles().toArray(Shape[]::new);
+		Assert.assertArrayEquals(hole1.getPoints(), holes[0].getPoints());
+		Assert.assertArrayEquals(hole2.getPoints(), holes[1].getPoints());
+
+		Shape[] lines = {outline, hole1, hole2};
+		for (int line = 0; line < lines.length; line++) {
+			Assert.assertEquals(lines[line].getPointCount(), cheese.getPointCount(line));
+			double[] coordinates = new double[cheese.getPointCount(line) * 2 + 1];
+			cheese.copyCoordinates(line, coordinates, 1);
+			for (int point = 0; point < lines[line].getPointCount(); point++) {
+				Vector2d expected = lines[line].getPoint(point);
+				Assert.assertEquals(expected.getX(), cheese.getX(line, point), 0);
+				Assert.assertEquals(expected.getY(), cheese.getY(line, point), 0);
+				Assert.assertEquals(expected.getX(), coordinates[1 + point * 2], 0);
+				Assert.assertEquals(expected.getY(), coordinates[2 + point * 2], 0);
+			}
+		}
+	}
+
+	@Test
+	public void measurements() {
+		// a 3x3 ring of chunks, with the middle chunk as a hole
+		List<Vector2i> chunks = new ArrayList<>();
+		for (int x = 0; x < 3; x++) {
+			for (int y = 0; y < 3; y++) {
+				if (x != 1 || y != 1) chunks.add(Vector2i.from(x, y));
+			}
+		}
+		Cheese cheese = Cheese.createSingleFromChunks(chunks.toArray(Vector2i[]::new));
+		Assert.assertEquals(8 * 16 * 16, cheese.getArea(), 0);
+		Assert.assertEquals(16 * 16, cheese.getHoleArea(), 0);
+		Assert.assertEquals(4 * 48 + 4 * 16, cheese.getPerimeter(), 0);
+		Assert.assertEquals(8, cheese.getVertexCount());
+		Assert.assertEquals(Vector2d.from(0, 0), cheese.getMin());
+		Assert.assertEquals(Vector2d.from(48, 48), cheese.getMax());
+
+		// a 3-4-5 triangle
+		Cheese triangle = new Cheese(new Shape(Vector2d.from(-1, -1), Vector2d.from(3, -1), Vector2d.from(-1, 2)));
+		Assert.assertEquals(6, triangle.getArea(), 1e-9);
+		Assert.assertEquals(0, triangle.getHoleArea(), 0);
+		Assert.assertEquals(12, triangle.getPerimeter(), 1e-9);
+		Assert.assertEquals(3, triangle.getVertexCount());
+		Assert.assertEquals(-1, triangle.getMinX(), 0);
+		Assert.assertEquals(-1, triangle.getMinY(), 0);
+		Assert.assertEquals(3, triangle.getMaxX(), 0);
+		Assert.assertEquals(2, triangle.getMaxY(), 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void rawCoordinatesOutOfBounds() {
+		Cheese cheese = new Cheese(Shape.createRect(0, 0, 10, 10), Shape.createRect(1, 1, 2, 2));
+		// the first point of the hole, but not of the outline
+		cheese.getX(0, 4);
+	}
+
+	//endregion Coordinates
+
+	//region Nested
+
+	@Test
+	public void nestedPlatter() {
+		List<Vector2i> chunks = new ArrayList<>();
+		// a 9x9 ring with a 7x7 hole
+		for (int x = 0; x < 9; x++) {
+			for (int y = 0; y < 9; y++) {
+				if (x == 0 || y == 0 || x == 8 || y == 8) chunks.add(Vector2i.from(x, y));
+			}
+		}
+		// a 5x5 ring inside that hole, with a single chunk inside its own 3x3 hole
+		for (int x = 2; x < 7; x++) {
+			for (int y = 2; y < 7; y++) {
+				if (x == 2 || y == 2 || x == 6 || y == 6) chunks.add(Vector2i.from(x, y));
+			}
+		}
+		chunks.add(Vector2i.from(4, 4));
+		// a chunk next to the outer ring, touching it diagonally
+		chunks.add(Vector2i.from(9, 9));
+
+		Collections.shuffle(chunks, new Random(1));
+		NestedCheese[] roots = Cheese.createNestedPlatterFromChunks(chunks.toArray(Vector2i[]::new)).toArray(NestedCheese[]::new);
+		Assert.assertEquals(2, roots.length);
+
+		NestedCheese outer = roots[0];
+		Assert.assertNull(outer.getParent());
+		Assert.assertEquals(-1, outer.getParentHole());
+		Assert.assertEquals(1, outer.getCheese().getHoleCount());
+		Assert.assertEquals(1, outer.getChildren().size());
+		Assert.assertEquals(outer.getChildren(), outer.getChildren(0));
+
+		NestedCheese middle = outer.getChildren().get(0);
+		Assert.assertSame(outer, middle.getParent());
+		Assert.assertEquals(0, middle.getParentHole());
+		Assert.assertEquals(1, middle.getChildren().size());
+
+		NestedCheese inner = middle.getChildren().get(0);
+		Assert.assertSame(middle, inner.getParent());
+		Assert.assertEquals(0, inner.getParentHole());
+		Assert.assertTrue(inner.getChildren().isEmpty());
+		Assert.assertEquals(4, inner.getCheese().getShape().getPointCount());
+
+		NestedCheese corner = roots[1];
+		Assert.assertNull(corner.getParent());
+		Assert.assertTrue(corner.getChildren().isEmpty());
+	}
+
+	@Test
+	public void nestedPlatterSameCheeses() {
+		Random random = new Random(2);
+		List<Vector2i> cells = new ArrayList<>();
+		for (int x = 0; x < 40; x++) {
+			for (int y = 0; y < 40; y++) {
+				if (random.nextBoolean()) cells.add(Vector2i.from(x, y));
+			}
+		}
+		Vector2i[] array = cells.toArray(Vector2i[]::new);
+		Cheese[] platter = Cheese.createPlatterFromCells(Vector2d.from(1, 1), array).toArray(Cheese[]::new);
+
+		// walk the tree, and check that it contains the same cheeses as the flat platter
+		List<NestedCheese> nested = new ArrayList<>(Cheese.createNestedPlatterFromCells(Vector2d.from(1, 1), array));
+		for (int i = 0; i < nested.size(); i++) {
+			nested.addAll(nested.get(i).getChildren());
+		}
+		Assert.assertEquals(platter.length, nested.size());
+		List<String> expected = new ArrayList<>(), actual = new ArrayList<>();
+		for (Cheese cheese : platter) expected.add(Arrays.toString(cheese.getShape().getPoints()));
+		for (NestedCheese cheese : nested) actual.add(Arrays.toString(cheese.getCheese().getShape().getPoints()));
+		Collections.sort(expected);
+		Collections.sort(actual);
+		Assert.assertEquals(expected, actual);
+	}
+
+	//endregion Nested
+
+	//region Owners
+
+	@Test
+	public void plattersByOwner() {
+		Random random = new Random(3);
+		Map<Vector2i, String> owners = new HashMap<>();
+		Map<String, List<Vector2i>> expectedCells = new HashMap<>();
+		String[] names = {"red", "green", "blue"};
+		for (int x = 0; x < 30; x++) {
+			for (int y = 0; y < 30; y++) {
+				int owner = random.nextInt(names.length + 1);
+				if (owner == names.length) continue; // unclaimed
+				Vector2i chunk = Vector2i.from(x, y);
+				owners.put(chunk, names[owner]);
+				expectedCells.computeIfAbsent(names[owner], k -> new ArrayList<>()).add(chunk);
+			}
+		}
+
+		Map<String, Collection<Cheese>> platters = Cheese.createPlattersByOwner(owners);
+		Assert.assertEquals(expectedCells.keySet(), platters.keySet());
+		for (String name : names) {
+			Collection<Cheese> expected = Cheese.createPlatterFromChunks(expectedCells.get(name).toArray(Vector2i[]::new));
+			CheeseAssert.assertSamePlatter(expected, platters.get(name));
+		}
+	}
+
+	@Test
+	public void plattersByOwnerSharedBorders() {
+		// an island of blue in a hole of red, which lies in a hole of green, and a blue cell that touches green only at a corner
+		// GGGGGGG.
+		// GRRRRRG.
+		// GRBB.RG.
+		// GRRRRRG.
+		// GGGGGGG.
+		// .......B
+		Map<Vector2i, Integer> owners = new HashMap<>();
+		for (int x = 0; x < 7; x++) {
+			for (int y = 0; y < 5; y++) {
+				boolean ring = x == 0 || y == 0 || x == 6 || y == 4;
+				owners.put(Vector2i.from(x, y), ring ? 0 : 1);
+			}
+		}
+		owners.put(Vector2i.from(2, 2), 2);
+		owners.put(Vector2i.from(3, 2), 2);
+		owners.remove(Vector2i.from(4, 2));
+		owners.put(Vector2i.from(7, -1), 2);
+
+		Map<Integer, Collection<Cheese>> platters = Cheese.createPlattersByOwner(owners);
+		Assert.assertEquals(3, platters.size());
+		for (int owner = 0; owner < 3; owner++) {
+			List<Vector2i> cells = new ArrayList<>();
+			for (Map.Entry<Vector2i, Integer> entry : owners.entrySet()) {
+				if (entry.getValue() == owner) cells.add(entry.getKey());
+			}
+			CheeseAssert.assertSamePlatter(Cheese.createPlatterFromChunks(cells.toArray(Vector2i[]::new)), platters.get(owner));
+		}
+		Assert.assertEquals(1, platters.get(0).size());
+		Assert.assertEquals(1, platters.get(1).size());
+		Assert.assertEquals(2, platters.get(2).size());
+	}
+
+	//endregion Owners
+
+	//region Async
+
+	@Test
+	public void platterAsync() {
+		Vector2i[] chunks = {Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(5, 5)};
+		Cheese[] expected = Cheese.createPlatterFromChunks(chunks).toArray(Cheese[]::new);
+		Cheese[] actual = Cheese.createPlatterFromChunksAsync(chunks).join().toArray(Cheese[]::new);
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertArrayEquals(expected[i].getShape().getPoints(), actual[i].getShape().getPoints());
+		}
+	}
+
+	@Test
+	public void platterAsyncCancelled() {
+		List<Runnable> tasks = new ArrayList<>();
+		CompletableFuture<Collection<Cheese>> future = Cheese.createPlatterFromCellsAsync(Vector2d.from(1, 1), tasks::add, Vector2i.from(0, 0));
+		Assert.assertTrue(future.cancel(false));
+		tasks.forEach(Runnable::run);
+		Assert.assertTrue(future.isCancelled());
+	}
+
+	//endregion Async
+
+	//region Stream
+
+	@Test
+	public void platterStream() {
+		Random random = new Random(25);
+		long[] cells = LongStream.range(0, 3000)
+				.map(i -> CellKey.pack(random.nextInt(100), random.nextInt(100)))
+				.toArray();
+		long[] original = cells.clone();
+
+		Cheese[] expected = Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells).toArray(Cheese[]::new);
+		Cheese[] actual = Cheese.streamPlatterFromCells(Vector2d.from(1, 1), cells).toArray(Cheese[]::new);
+		Assert.assertArrayEquals(original, cells);
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertArrayEquals(expected[i].getShape().getPoints(), actual[i].getShape().getPoints());
+			Assert.assertEquals(expected[i].getHoleCount(), actual[i].getHoleCount());
+		}
+
+		Assert.assertEquals(2, Cheese.streamPlatterFromChunks(Vector2i.from(0, 0), Vector2i.from(2, 2)).count());
+		Assert.assertEquals(0, Cheese.streamPlatterFromChunks().count());
+	}
+
+	//endregion Stream
 }
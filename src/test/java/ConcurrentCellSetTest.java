@@ -0,0 +1,74 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.CellKey;
+import com.technicjelle.BMUtils.CellSet;
+import com.technicjelle.BMUtils.ConcurrentCellSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public class ConcurrentCellSetTest {
+	private static void runThreads(IntConsumer task) throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			int offset = t * 10;
+			threads.add(new Thread(() -> task.accept(offset)));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+	}
+
+	@Test
+	public void manyThreads() throws InterruptedException {
+		ConcurrentCellSet set = new ConcurrentCellSet();
+		// every thread overlaps with the next one
+		runThreads(offset -> {
+			for (int x = offset; x < offset + 20; x++) {
+				for (int y = -100; y < 100; y++) set.add(x, y);
+			}
+		});
+		runThreads(offset -> {
+			for (int x = offset; x < offset + 20; x++) {
+				for (int y = -99; y < 100; y += 2) set.remove(x, y);
+			}
+		});
+
+		CellSet expected = new CellSet();
+		for (int x = 0; x < 90; x++) {
+			for (int y = -100; y < 100; y += 2) expected.add(x, y);
+		}
+		Assert.assertArrayEquals(expected.toArray(), set.snapshot().toArray());
+		Assert.assertTrue(set.contains(Vector2i.from(89, -100)));
+		Assert.assertFalse(set.contains(89, -99));
+	}
+
+	@Test
+	public void snapshotIsACopy() {
+		ConcurrentCellSet set = new ConcurrentCellSet();
+		set.add(Vector2i.from(1, 1));
+		CellSet snapshot = set.snapshot();
+		set.add(2, 2);
+		set.remove(1, 1);
+
+		Assert.assertArrayEquals(new long[]{CellKey.pack(1, 1)}, snapshot.toArray());
+		Assert.assertArrayEquals(new long[]{CellKey.pack(2, 2)}, set.snapshot().toArray());
+		Assert.assertEquals(1, set.createPlatterFromChunks().size());
+
+		set.clear();
+		Assert.assertTrue(set.snapshot().isEmpty());
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.CellKey;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.OffHeapPlatterBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class OffHeapPlatterBuilderTest {
+	private static long[] randomCells(int count, long seed) {
+		Random random = new Random(seed);
+		long[] cells = new long[count];
+		for (int i = 0; i < count; i++) {
+			// around the origin, so both negative and positive coordinates are used, with plenty of duplicates
+			cells[i] = CellKey.pack(random.nextInt(600) - 300, random.nextInt(600) - 300);
+		}
+		return cells;
+	}
+
+	@Test
+	public void sameAsOnHeap() {
+		long[] cells = randomCells(200_000, 1);
+		Vector2d cellSize = Vector2d.from(2, 3);
+		try (OffHeapPlatterBuilder builder = new OffHeapPlatterBuilder()) {
+			// more cells than the initial capacity, added in both ways
+			builder.addCells(cells);
+			builder.addCell(Vector2i.from(1000, 1000));
+			builder.addCell(-1000, -1000);
+			Assert.assertEquals(200_002, builder.getCellCount());
+
+			long[] all = new long[cells.length + 2];
+			System.arraycopy(cells, 0, all, 0, cells.length);
+			all[cells.length] = CellKey.pack(1000, 1000);
+			all[cells.length + 1] = CellKey.pack(-1000, -1000);
+			CheeseAssert.assertSamePlatter(Cheese.createPlatterFromCells(cellSize, all), builder.createPlatterFromCells(cellSize));
+		}
+	}
+
+	@Test
+	public void addMoreAfterCreating() {
+		try (OffHeapPlatterBuilder builder = new OffHeapPlatterBuilder()) {
+			builder.addCell(0, 0);
+			builder.addCell(5, 5);
+			Assert.assertEquals(2, builder.createPlatterFromChunks().size());
+
+			builder.addCell(1, 0);
+			builder.addCell(1, 0);
+			builder.addCell(0, 1);
+			CheeseAssert.assertSamePlatter(
+					Cheese.createPlatterFromChunks(Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(0, 1), Vector2i.from(5, 5)),
+					builder.createPlatterFromChunks()
+			);
+		}
+	}
+
+	@Test
+	public void memoryMapped() throws IOException {
+		Path file = Files.createTempFile("cheese", ".cells");
+		try {
+			long[] cells = randomCells(100_000, 2);
+			try (OffHeapPlatterBuilder builder = OffHeapPlatterBuilder.mapped(file)) {
+				for (long cell : cells) {
+					builder.addCell(CellKey.x(cell), CellKey.y(cell));
+				}
+				CheeseAssert.assertSamePlatter(Cheese.createPlatterFromChunks(cells), builder.createPlatterFromChunks());
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.PlatterIndex;
+import com.technicjelle.BMUtils.PreparedCheese;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class PlatterIndexTest {
+	private static Collection<Cheese> randomPlatter(Random random) {
+		List<Vector2i> cells = new ArrayList<>();
+		for (int claim = 0; claim < 300; claim++) {
+			int x = random.nextInt(400), y = random.nextInt(400);
+			int width = 1 + random.nextInt(6), height = 1 + random.nextInt(6);
+			for (int dx = 0; dx < width; dx++) {
+				for (int dy = 0; dy < height; dy++) cells.add(Vector2i.from(x + dx, y + dy));
+			}
+		}
+		return Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new));
+	}
+
+	@Test
+	public void empty() {
+		PlatterIndex index = new PlatterIndex(List.of());
+		Assert.assertEquals(0, index.size());
+		Assert.assertNull(index.getCheeseAt(0, 0));
+		Assert.assertNull(index.getNearestCheese(0, 0));
+		Assert.assertTrue(index.getCheesesIn(-10, -10, 10, 10).isEmpty());
+	}
+
+	@Test
+	public void cheeseAt() {
+		Random random = new Random(19);
+		Collection<Cheese> platter = randomPlatter(random);
+		List<PreparedCheese> prepared = platter.stream().map(PreparedCheese::new).toList();
+		PlatterIndex index = new PlatterIndex(platter);
+		Assert.assertEquals(platter.size(), index.size());
+
+		for (int i = 0; i < 5000; i++) {
+			double x = random.nextDouble() * 420 - 10, y = random.nextDouble() * 420 - 10;
+			Cheese expected = null;
+			for (PreparedCheese cheese : prepared) {
+				if (cheese.contains(x, y)) expected = cheese.getCheese();
+			}
+			Assert.assertSame(expected, index.getCheeseAt(x, y));
+		}
+	}
+
+	@Test
+	public void cheesesIn() {
+		Random random = new Random(190);
+		Collection<Cheese> platter = randomPlatter(random);
+		PlatterIndex index = new PlatterIndex(platter);
+
+		for (int i = 0; i < 200; i++) {
+			double minX = random.nextDouble() * 400, minY = random.nextDouble() * 400;
+			double maxX = minX + random.nextDouble() * 50, maxY = minY + random.nextDouble() * 50;
+			Set<Cheese> expected = new HashSet<>();
+			for (Cheese cheese : platter) {
+				if (cheese.getMinX() < maxX && cheese.getMaxX() > minX && cheese.getMinY() < maxY && cheese.getMaxY() > minY) expected.add(cheese);
+			}
+			Assert.assertEquals(expected, new HashSet<>(index.getCheesesIn(minX, minY, maxX, maxY)));
+		}
+	}
+
+	@Test
+	public void nearestCheese() {
+		Collection<Cheese> platter = Cheese.createPlatterFromChunks(Vector2i.from(0, 0), Vector2i.from(4, 0), Vector2i.from(0, 4));
+		PlatterIndex index = new PlatterIndex(platter);
+
+		Assert.assertEquals(0, index.getNearestCheese(8, 8).getMinX(), 0);
+		Assert.assertEquals(64, index.getNearestCheese(50, 10).getMinX(), 0);
+		Assert.assertEquals(64, index.getNearestCheese(300, 10).getMinX(), 0);
+		Assert.assertEquals(64, index.getNearestCheese(-100, 200).getMinY(), 0);
+		Assert.assertNull(index.getNearestCheese(40, 40, 33));
+		Assert.assertNotNull(index.getNearestCheese(40, 40, 35));
+	}
+}
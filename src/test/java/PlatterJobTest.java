@@ -0,0 +1,85 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.PlatterJob;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+public class PlatterJobTest {
+	@Test
+	public void smallSteps() {
+		Random random = new Random(24);
+		Vector2i[] cells = new Vector2i[20000];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = Vector2i.from(random.nextInt(300) - 150, random.nextInt(300) - 150);
+		}
+
+		PlatterJob job = new PlatterJob(Vector2d.from(1, 1), cells);
+		Assert.assertEquals(0, job.getProgress(), 0);
+		Assert.assertThrows(IllegalStateException.class, job::getPlatter);
+
+		int steps = 0;
+		double progress = 0;
+		while (!job.step(0)) {
+			Assert.assertTrue("every block should count towards the progress", job.getProgress() > progress);
+			progress = job.getProgress();
+			steps++;
+		}
+		Assert.assertTrue("a step without a budget should only do a single block", steps > 20);
+		Assert.assertEquals(1, job.getProgress(), 0);
+		CheeseAssert.assertSamePlatter(Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells), job.getPlatter());
+	}
+
+	@Test
+	public void singleLargeArea() {
+		// a single area with many holes, which is traced over many steps
+		Random random = new Random(7);
+		Vector2i[] cells = new Vector2i[200 * 200];
+		int count = 0;
+		for (int x = 0; x < 200; x++) {
+			for (int y = 0; y < 200; y++) {
+				if (x == 0 || y == 0 || random.nextInt(10) != 0) cells[count++] = Vector2i.from(x, y);
+			}
+		}
+		cells = Arrays.copyOf(cells, count);
+
+		PlatterJob job = new PlatterJob(Vector2d.from(1, 1), cells);
+		while (!job.step(0)) {
+			// one block at a time
+		}
+		Collection<Cheese> expected = Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells);
+		CheeseAssert.assertSamePlatter(expected, job.getPlatter());
+		Assert.assertTrue(job.getPlatter().iterator().next().getHoleCount() > 100);
+	}
+
+	@Test
+	public void singleStep() {
+		Vector2i[] chunks = {Vector2i.from(0, 0), Vector2i.from(-1, 0), Vector2i.from(5, -5)};
+		PlatterJob job = PlatterJob.forChunks(chunks);
+		Assert.assertTrue(job.step(Long.MAX_VALUE));
+		CheeseAssert.assertSamePlatter(Cheese.createPlatterFromChunks(chunks), job.getPlatter());
+	}
+
+	@Test
+	public void empty() {
+		PlatterJob job = PlatterJob.forChunks();
+		Assert.assertTrue(job.step(0) || job.step(Long.MAX_VALUE));
+		Assert.assertTrue(job.getPlatter().isEmpty());
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.PlatterScheduler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class PlatterSchedulerTest {
+	@Test
+	public void latestWins() {
+		List<Runnable> tasks = new ArrayList<>();
+		PlatterScheduler<String> scheduler = new PlatterScheduler<>(tasks::add);
+
+		CompletableFuture<Collection<Cheese>> first = scheduler.submitChunks("claim", Vector2i.from(0, 0));
+		CompletableFuture<Collection<Cheese>> other = scheduler.submitChunks("other", Vector2i.from(9, 9));
+		CompletableFuture<Collection<Cheese>> second = scheduler.submitChunks("claim", Vector2i.from(0, 0), Vector2i.from(3, 3));
+		Assert.assertTrue(first.isCancelled());
+		Assert.assertEquals(2, scheduler.getRunningCount());
+
+		tasks.forEach(Runnable::run);
+		Assert.assertEquals(2, second.join().size());
+		Assert.assertEquals(1, other.join().size());
+		Assert.assertEquals(0, scheduler.getRunningCount());
+	}
+
+	@Test
+	public void cancel() {
+		List<Runnable> tasks = new ArrayList<>();
+		PlatterScheduler<Integer> scheduler = new PlatterScheduler<>(tasks::add);
+
+		CompletableFuture<Collection<Cheese>> a = scheduler.submitChunks(1, Vector2i.from(0, 0));
+		CompletableFuture<Collection<Cheese>> b = scheduler.submitChunks(2, Vector2i.from(0, 0));
+		Assert.assertTrue(scheduler.cancel(1));
+		Assert.assertFalse(scheduler.cancel(1));
+		scheduler.cancelAll();
+
+		tasks.forEach(Runnable::run);
+		Assert.assertTrue(a.isCancelled());
+		Assert.assertTrue(b.isCancelled());
+		Assert.assertEquals(0, scheduler.getRunningCount());
+	}
+
+	@Test
+	public void virtualThreads() {
+		PlatterScheduler<String> scheduler = new PlatterScheduler<>();
+		Assert.assertEquals(1, scheduler.submitChunks("claim", Vector2i.from(0, 0)).join().size());
+	}
+}
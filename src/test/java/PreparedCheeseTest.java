@@ -0,0 +1,104 @@
+/*
+ * This file is part of BMUtils, licensed under the MPL2 License (MPL).
+ * Please keep tabs on https://github.com/TechnicJelle/BMUtils for updates.
+ *
+ * Copyright (c) TechnicJelle <https://technicjelle.com>
+ * Copyright (c) contributors
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ */
+
+import com.flowpowered.math.vector.Vector2d;
+import com.flowpowered.math.vector.Vector2i;
+import com.technicjelle.BMUtils.Cheese;
+import com.technicjelle.BMUtils.PreparedCheese;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+public class PreparedCheeseTest {
+	@Test
+	public void bordersOfAChunk() {
+		PreparedCheese prepared = new PreparedCheese(Cheese.createSingleFromChunks(Vector2i.from(0, 0)));
+
+		Assert.assertTrue(prepared.contains(0, 0));
+		Assert.assertTrue(prepared.contains(15.9, 15.9));
+		Assert.assertTrue(prepared.contains(Vector2d.from(8, 8)));
+		Assert.assertFalse(prepared.contains(16, 8));
+		Assert.assertFalse(prepared.contains(8, 16));
+		Assert.assertFalse(prepared.contains(-0.1, 8));
+		Assert.assertFalse(prepared.contains(Double.NaN, 8));
+	}
+
+	@Test
+	public void hole() {
+		// a ring of chunks around (1, 1)
+		Collection<Cheese> platter = Cheese.createPlatterFromChunks(
+				Vector2i.from(0, 0), Vector2i.from(1, 0), Vector2i.from(2, 0),
+				Vector2i.from(0, 1), Vector2i.from(2, 1),
+				Vector2i.from(0, 2), Vector2i.from(1, 2), Vector2i.from(2, 2)
+		);
+		Assert.assertEquals(1, platter.size());
+		PreparedCheese prepared = new PreparedCheese(platter.iterator().next());
+
+		Assert.assertTrue(prepared.contains(8, 8));
+		Assert.assertTrue(prepared.contains(15.9, 24));
+		Assert.assertFalse(prepared.contains(16, 24));
+		Assert.assertFalse(prepared.contains(24, 24));
+		Assert.assertTrue(prepared.contains(32, 24));
+		Assert.assertTrue(prepared.contains(24, 40));
+	}
+
+	@Test
+	public void matchesCells() {
+		Random random = new Random(18);
+		for (int round = 0; round < 20; round++) {
+			boolean[][] grid = new boolean[20][20];
+			Collection<Vector2i> cells = new ArrayList<>();
+			for (int x = 0; x < 20; x++) {
+				for (int y = 0; y < 20; y++) {
+					if (random.nextInt(10) < 6) {
+						grid[x][y] = true;
+						cells.add(Vector2i.from(x, y));
+					}
+				}
+			}
+
+			boolean[][] covered = new boolean[20][20];
+			for (Cheese cheese : Cheese.createPlatterFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new))) {
+				PreparedCheese prepared = new PreparedCheese(cheese);
+				for (int x = -1; x <= 20; x++) {
+					for (int y = -1; y <= 20; y++) {
+						boolean inside = prepared.contains(x + 0.5, y + 0.5);
+						Assert.assertEquals(inside, prepared.contains(x, y));
+						if (!inside) continue;
+						Assert.assertTrue(grid[x][y]);
+						Assert.assertFalse(covered[x][y]);
+						covered[x][y] = true;
+					}
+				}
+			}
+			Assert.assertArrayEquals(grid, covered);
+		}
+	}
+
+	@Test
+	public void simplified() {
+		// a staircase, which gets simplified into a slanted line
+		Collection<Vector2i> cells = new ArrayList<>();
+		for (int x = 0; x < 16; x++) {
+			for (int y = 0; y <= x; y++) cells.add(Vector2i.from(x, y));
+		}
+		Cheese cheese = Cheese.createSingleFromCells(Vector2d.from(1, 1), cells.toArray(Vector2i[]::new)).simplify(1);
+		PreparedCheese prepared = new PreparedCheese(cheese);
+
+		Assert.assertTrue(prepared.contains(12, 2));
+		Assert.assertFalse(prepared.contains(2, 12));
+		Assert.assertFalse(prepared.contains(20, 2));
+	}
+}